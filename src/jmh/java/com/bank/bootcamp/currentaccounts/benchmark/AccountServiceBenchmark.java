@@ -0,0 +1,90 @@
+package com.bank.bootcamp.currentaccounts.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
+
+// Línea base de los caminos más usados de AccountService, con repositorios y clientes en memoria.
+// La tasa de asignación por operación la reporta el profiler de GC (gc.alloc.rate.norm).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+  private static final String ACCOUNT_ID = "A-1";
+
+  private AccountService accountService;
+  private TransferService transferService;
+  private CreateTransactionDTO deposit;
+  private TransferDTO transfer;
+  private final ModelMapper mapper = new ModelMapper();
+
+  // Se reinicia en cada iteración para que el contador mensual (comisión) y el saldo no se acumulen entre mediciones
+  @Setup(Level.Iteration)
+  public void setup() {
+    var stubs = new InMemoryStubs();
+    stubs.addAccount(ACCOUNT_ID, 100_000_000_000L);
+    accountService = stubs.accountService();
+    transferService = stubs.transferService(accountService);
+
+    deposit = new CreateTransactionDTO();
+    deposit.setAccountId(ACCOUNT_ID);
+    deposit.setAgent("Agente");
+    deposit.setDescription("Deposito");
+    deposit.setAmount(new BigDecimal("10"));
+
+    transfer = new TransferDTO();
+    transfer.setSourceAccountId(ACCOUNT_ID);
+    transfer.setTargetAccountId("B-1");
+    transfer.setTargetAccountType(AccountType.SAVING);
+    transfer.setAmount(new BigDecimal("1"));
+  }
+
+  @Benchmark
+  public Transaction createTransaction() {
+    return accountService.createTransaction(deposit).block();
+  }
+
+  // Registro en el outbox y débito; el abono al destino lo hace el dispatcher fuera de la solicitud
+  @Benchmark
+  public String transfer() {
+    return transferService.transfer(transfer).block();
+  }
+
+  @Benchmark
+  public BalanceDTO getBalanceByAccountId() {
+    return accountService.getBalanceByAccountId(ACCOUNT_ID).block();
+  }
+
+  // Mapeo reflectivo que usaba persistTransaction, como referencia para el mapeo escrito a mano
+  @Benchmark
+  public Transaction mapTransactionWithModelMapper() {
+    return mapper.map(deposit, Transaction.class);
+  }
+
+  @Benchmark
+  public Transaction mapTransaction() {
+    return deposit.toTransaction();
+  }
+}
@@ -0,0 +1,172 @@
+package com.bank.bootcamp.currentaccounts.benchmark;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.mockito.Answers;
+import org.mockito.Mockito;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransferRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.LedgerSnapshotService;
+import com.bank.bootcamp.currentaccounts.service.MovementCounterService;
+import com.bank.bootcamp.currentaccounts.service.NextSequenceService;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
+import com.bank.bootcamp.currentaccounts.webclient.AccountWebClient;
+import com.bank.bootcamp.currentaccounts.webclient.CreditWebClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Repositorios y clientes en memoria para medir AccountService sin Mongo ni red. Los colaboradores que el camino
+// medido no usa son mocks, nunca null
+public class InMemoryStubs {
+
+  final Map<String, Account> accounts = new ConcurrentHashMap<>();
+  final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+  final AtomicInteger sequence = new AtomicInteger();
+  final StandardEnvironment env = new StandardEnvironment();
+  // Los timers forman parte del costo medido, igual que en producción
+  final StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
+  final AccountRepository accountRepository;
+  final TransactionRepository transactionRepository;
+  final LedgerSnapshotService ledgerSnapshotService;
+  final AccountCache accountCache;
+
+  public InMemoryStubs() {
+    accountRepository = reactiveMock(AccountRepository.class);
+    Mockito.doAnswer(inv -> Mono.justOrEmpty(accounts.get(inv.<String>getArgument(0)))).when(accountRepository).findById(Mockito.anyString());
+    Mockito.doAnswer(inv -> {
+      var account = inv.<Account>getArgument(0);
+      accounts.put(account.getId(), account);
+      return Mono.just(account);
+    }).when(accountRepository).save(Mockito.any(Account.class));
+    transactionRepository = reactiveMock(TransactionRepository.class);
+    Mockito.doAnswer(inv -> Mono.just(inv.getArgument(0))).when(transactionRepository).save(Mockito.any(Transaction.class));
+    ledgerSnapshotService = reactiveMock(LedgerSnapshotService.class);
+    accountCache = new AccountCache(accountRepository, env, new SimpleMeterRegistry());
+  }
+
+  // Sin grabar invocaciones (no crece la memoria durante la medición); lo que no tiene stub devuelve un
+  // Mono o Flux vacío en lugar de null
+  static <T> T reactiveMock(Class<T> type) {
+    return Mockito.mock(type, Mockito.withSettings().stubOnly().defaultAnswer(invocation -> {
+      var returnType = invocation.getMethod().getReturnType();
+      if (Mono.class.equals(returnType))
+        return Mono.empty();
+      if (Flux.class.equals(returnType))
+        return Flux.empty();
+      return Answers.RETURNS_DEFAULTS.answer(invocation);
+    }));
+  }
+
+  public Account addAccount(String accountId, long balance) {
+    var account = new Account();
+    account.setId(accountId);
+    account.setMaintenanceFee(500L);
+    account.setBalance(balance);
+    accounts.put(accountId, account);
+    return account;
+  }
+
+  public AccountService accountService() {
+    return new AccountService(accountRepository, transactionRepository, nextSequenceService(), env,
+        creditWebClient(), accountBalanceService(), movementCounterService(), accountCache, ledgerSnapshotService, stageMetrics);
+  }
+
+  // El outbox se guarda en un mock: solo interesa el costo del registro y del débito en la solicitud
+  public TransferService transferService(AccountService accountService) {
+    var transferRepository = reactiveMock(TransferRepository.class);
+    Mockito.doAnswer(inv -> {
+      var transfer = inv.<Transfer>getArgument(0);
+      transfer.setId(String.valueOf(sequence.incrementAndGet()));
+      return Mono.just(transfer);
+    }).when(transferRepository).insert(Mockito.any(Transfer.class));
+    var mongoTemplate = reactiveMock(ReactiveMongoTemplate.class);
+    Mockito.when(mongoTemplate.findAndModify(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(Transfer.class)))
+        .thenReturn(Mono.just(new Transfer()));
+    return new TransferService(transferRepository, transactionRepository, mongoTemplate, accountService, accountCache, accountWebClient(), env, stageMetrics);
+  }
+
+  private NextSequenceService nextSequenceService() {
+    return new NextSequenceService(reactiveMock(ReactiveMongoTemplate.class), env) {
+      @Override
+      public Mono<Integer> getNextSequence(String seqName) {
+        return Mono.fromSupplier(sequence::incrementAndGet);
+      }
+    };
+  }
+
+  private AccountBalanceService accountBalanceService() {
+    return new AccountBalanceService(reactiveMock(ReactiveMongoTemplate.class), ledgerSnapshotService) {
+      @Override
+      public Mono<Account> reserve(String accountId, long amount) {
+        return Mono.fromSupplier(() -> {
+          var applied = new Account[1];
+          accounts.computeIfPresent(accountId, (id, account) -> {
+            if (account.getBalance() + amount >= 0) {
+              var updated = new Account();
+              updated.setId(id);
+              updated.setMaintenanceFee(account.getMaintenanceFee());
+              updated.setBalance(account.getBalance() + amount);
+              applied[0] = updated;
+              return updated;
+            }
+            return account;
+          });
+          return applied[0];
+        });
+      }
+
+      @Override
+      public Mono<Account> applyMovement(String accountId, long amount) {
+        return reserve(accountId, amount);
+      }
+    };
+  }
+
+  private MovementCounterService movementCounterService() {
+    return new MovementCounterService(reactiveMock(ReactiveMongoTemplate.class), transactionRepository) {
+      @Override
+      public Mono<Long> getCount(String accountId, YearMonth period) {
+        return Mono.just(counters.computeIfAbsent(counterId(accountId, period), id -> new AtomicLong()).get());
+      }
+
+      @Override
+      public Mono<Long> increment(String accountId, YearMonth period, long delta) {
+        return Mono.just(counters.computeIfAbsent(counterId(accountId, period), id -> new AtomicLong()).addAndGet(delta));
+      }
+    };
+  }
+
+  private CreditWebClient creditWebClient() {
+    return new CreditWebClient(new ReactiveResilience4JCircuitBreakerFactory(), WebClient.create(), env, new SimpleMeterRegistry(), stageMetrics);
+  }
+
+  private AccountWebClient accountWebClient() {
+    return new AccountWebClient(new ReactiveResilience4JCircuitBreakerFactory(), WebClient.create(), env, stageMetrics) {
+      @Override
+      public Mono<Integer> createTransaction(AccountType accountType, CreateTransactionDTO dto) {
+        return Mono.fromSupplier(sequence::incrementAndGet);
+      }
+    };
+  }
+}
@@ -0,0 +1,34 @@
+package com.bank.bootcamp.currentaccounts.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+// Reemplaza al gateway: créditos sin deuda ni saldos y productos destino que aceptan cualquier abono.
+// La latencia simula la de los servicios reales
+public class GatewayStub {
+
+  private GatewayStub() {
+  }
+
+  public static DisposableServer start(Duration latency) {
+    var operationNumber = new AtomicInteger();
+    return HttpServer.create().port(0)
+        .route(routes -> routes
+            .get("/credits/balanceByCustomer/{customerId}/{creditType}", (request, response) -> json(response, "[]", latency))
+            .get("/credits/hasDebt/{customerId}/{creditType}", (request, response) -> json(response, "false", latency))
+            .post("/{resource}/transaction", (request, response) -> request.receive().then()
+                .thenMany(Flux.defer(() -> json(response, String.valueOf(operationNumber.incrementAndGet()), latency)))))
+        .bindNow();
+  }
+
+  private static Publisher<Void> json(HttpServerResponse response, String body, Duration latency) {
+    var content = latency.isZero() ? Mono.just(body) : Mono.just(body).delayElement(latency);
+    return response.header("Content-Type", "application/json").sendString(content);
+  }
+}
@@ -0,0 +1,32 @@
+package com.bank.bootcamp.currentaccounts.loadtest;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.bank.bootcamp.currentaccounts.CurrentAccountsApplication;
+
+// Levanta el servicio con Mongo embebido y el gateway simulado, sin config server ni Eureka, y ejecuta la carga.
+// mvn -Ploadtest test-compile exec:exec [-Dloadtest.args="--loadtest.duration-seconds=30 --loadtest.concurrency=128"]
+public class LoadTestApplication {
+
+  public static void main(String[] args) {
+    var commandLine = new SimpleCommandLinePropertySource(args);
+    var latency = Duration.ofMillis(Long.parseLong(Optional.ofNullable(commandLine.getProperty("loadtest.stub.latency-millis")).orElse("5")));
+    var gateway = GatewayStub.start(latency);
+
+    // Propiedades del sistema para que también apliquen al contexto de bootstrap
+    System.setProperty("spring.profiles.active", "loadtest");
+    System.setProperty("spring.cloud.config.enabled", "false");
+    System.setProperty("gateway.url", "http://localhost:" + gateway.port());
+    var context = new SpringApplicationBuilder(CurrentAccountsApplication.class).run(args);
+    try {
+      var port = context.getEnvironment().getProperty("local.server.port");
+      new WorkloadGenerator(WebClient.create("http://localhost:" + port), context.getEnvironment()).run();
+    } finally {
+      context.close();
+      gateway.disposeNow();
+    }
+  }
+}
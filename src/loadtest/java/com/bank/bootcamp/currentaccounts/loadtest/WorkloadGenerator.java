@@ -0,0 +1,149 @@
+package com.bank.bootcamp.currentaccounts.loadtest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.CreateAccountDTO;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Carga sobre la API HTTP: depósitos, retiros y transferencias con una fracción de las operaciones concentrada
+// en pocas cuentas (contención sobre el saldo materializado y los contadores). Reporta throughput y percentiles
+// de latencia por tipo de operación y resultado
+@Slf4j
+@RequiredArgsConstructor
+public class WorkloadGenerator {
+
+  private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+  private final WebClient webClient;
+  private final Environment env;
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  public void run() {
+    var accounts = Integer.parseInt(Optional.ofNullable(env.getProperty("loadtest.accounts")).orElse("1000"));
+    var hotAccounts = Integer.parseInt(Optional.ofNullable(env.getProperty("loadtest.hot-accounts")).orElse("10"));
+    var hotRatio = Double.parseDouble(Optional.ofNullable(env.getProperty("loadtest.hot-ratio")).orElse("0.5"));
+    var depositWeight = Integer.parseInt(Optional.ofNullable(env.getProperty("loadtest.mix.deposit")).orElse("50"));
+    var withdrawWeight = Integer.parseInt(Optional.ofNullable(env.getProperty("loadtest.mix.withdraw")).orElse("30"));
+    var transferWeight = Integer.parseInt(Optional.ofNullable(env.getProperty("loadtest.mix.transfer")).orElse("20"));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("loadtest.concurrency")).orElse("64"));
+    var duration = Duration.ofSeconds(Long.parseLong(Optional.ofNullable(env.getProperty("loadtest.duration-seconds")).orElse("60")));
+
+    log.info("Creating {} account(s)", accounts);
+    var accountIds = Flux.range(0, accounts)
+        .flatMap(this::createAccount, 32)
+        .collectList()
+        .block();
+
+    log.info("Running {} worker(s) for {}s: deposit={} withdraw={} transfer={}, {}% of operations on {} hot account(s)",
+        concurrency, duration.toSeconds(), depositWeight, withdrawWeight, transferWeight, (int) (hotRatio * 100), hotAccounts);
+    var totalWeight = depositWeight + withdrawWeight + transferWeight;
+    var deadline = System.nanoTime() + duration.toNanos();
+    var start = System.nanoTime();
+    Flux.range(0, concurrency)
+        .flatMap(worker -> Mono.defer(() -> {
+          var accountId = pick(accountIds, hotAccounts, hotRatio);
+          var operation = ThreadLocalRandom.current().nextInt(totalWeight);
+          if (operation < depositWeight)
+            return timed("deposit", transaction(accountId, "Load test deposit", amount(1, 50)));
+          if (operation < depositWeight + withdrawWeight)
+            return timed("withdraw", transaction(accountId, "Load test withdraw", amount(1, 20).negate()));
+          return timed("transfer", transfer(accountId));
+        }).repeat(() -> System.nanoTime() < deadline), concurrency)
+        .blockLast();
+    report(Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  private Mono<String> createAccount(int index) {
+    var dto = new CreateAccountDTO();
+    dto.setCustomerId(String.format("LT%06d", index));
+    dto.setCustomerType(CustomerType.PERSONAL);
+    dto.setMaintenanceFee(new BigDecimal("5"));
+    dto.setOpeningAmount(new BigDecimal("1000"));
+    return webClient.post().uri("/currentAccounts").bodyValue(dto).retrieve().bodyToMono(String.class);
+  }
+
+  private Mono<Integer> transaction(String accountId, String description, BigDecimal amount) {
+    var dto = new CreateTransactionDTO();
+    dto.setAccountId(accountId);
+    dto.setAgent("loadtest");
+    dto.setDescription(description);
+    dto.setAmount(amount);
+    return webClient.post().uri("/currentAccounts/transaction").bodyValue(dto).retrieve().bodyToMono(Integer.class);
+  }
+
+  private Mono<String> transfer(String sourceAccountId) {
+    var dto = new TransferDTO();
+    dto.setSourceAccountId(sourceAccountId);
+    dto.setTargetAccountType(AccountType.SAVING);
+    dto.setTargetAccountId("SA-" + ThreadLocalRandom.current().nextInt(1000));
+    dto.setAmount(amount(1, 20));
+    return webClient.post().uri("/currentAccounts/transfer").bodyValue(dto).retrieve().bodyToMono(String.class);
+  }
+
+  private String pick(List<String> accountIds, int hotAccounts, double hotRatio) {
+    var random = ThreadLocalRandom.current();
+    var hot = Math.min(hotAccounts, accountIds.size());
+    return hot > 0 && random.nextDouble() < hotRatio
+        ? accountIds.get(random.nextInt(hot))
+        : accountIds.get(random.nextInt(accountIds.size()));
+  }
+
+  // Con céntimos, como los importes reales
+  private BigDecimal amount(int min, int max) {
+    return BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(min * 100L, max * 100L + 1), 2);
+  }
+
+  // Los rechazos de negocio (saldo insuficiente) cuentan como error pero no detienen la carga
+  private Mono<Void> timed(String operation, Mono<?> call) {
+    return Mono.defer(() -> {
+      var start = System.nanoTime();
+      return call.then(Mono.fromRunnable(() -> record(operation, "success", start)))
+          .onErrorResume(e -> Mono.fromRunnable(() -> record(operation, "error", start)))
+          .then();
+    });
+  }
+
+  private void record(String operation, String outcome, long start) {
+    Timer.builder("loadtest.operation")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .publishPercentiles(PERCENTILES)
+        .register(registry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  private void report(Duration elapsed) {
+    var seconds = elapsed.toMillis() / 1000d;
+    var timers = registry.find("loadtest.operation").timers();
+    var total = timers.stream().mapToLong(Timer::count).sum();
+    log.info("{} operation(s) in {}s, {} op/s", total, String.format("%.1f", seconds), String.format("%.1f", total / seconds));
+    log.info(String.format("%-10s %-8s %10s %10s %10s %10s %10s %10s %10s", "operation", "outcome", "count", "op/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+    timers.stream()
+        .sorted(Comparator.comparing((Timer timer) -> timer.getId().getTag("operation")).thenComparing(timer -> timer.getId().getTag("outcome")))
+        .forEach(timer -> {
+          var snapshot = timer.takeSnapshot();
+          var percentiles = new StringBuilder();
+          for (ValueAtPercentile value : snapshot.percentileValues())
+            percentiles.append(String.format(" %10.2f", value.value(TimeUnit.MILLISECONDS)));
+          log.info(String.format("%-10s %-8s %10d %10.1f%s %10.2f", timer.getId().getTag("operation"), timer.getId().getTag("outcome"),
+              timer.count(), timer.count() / seconds, percentiles, snapshot.max(TimeUnit.MILLISECONDS)));
+        });
+  }
+}
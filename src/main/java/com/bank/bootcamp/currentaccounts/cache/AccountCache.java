@@ -0,0 +1,49 @@
+package com.bank.bootcamp.currentaccounts.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+// Cache de lectura de cuentas. Solo se deben usar sus datos de alta (cliente, tipo, comisión de mantenimiento):
+// el saldo materializado cambia con cada movimiento y se lee siempre de Mongo.
+@Component
+public class AccountCache {
+
+  private final AccountRepository accountRepository;
+  private final AsyncCache<String, Account> cache;
+
+  public AccountCache(AccountRepository accountRepository, Environment env, MeterRegistry meterRegistry) {
+    this.accountRepository = accountRepository;
+    var maximumSize = Long.parseLong(Optional.ofNullable(env.getProperty("account.cache.maximum-size")).orElse("100000"));
+    var ttl = Duration.ofSeconds(Long.parseLong(Optional.ofNullable(env.getProperty("account.cache.ttl-seconds")).orElse("300")));
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "accounts");
+  }
+
+  public Mono<Account> findById(String accountId) {
+    // Las consultas concurrentes de la misma cuenta comparten una sola lectura; las cuentas inexistentes no se guardan
+    var future = cache.get(accountId, (id, executor) -> accountRepository.findById(id).toFuture());
+    // thenApply evita que la cancelación de un suscriptor cancele la lectura compartida
+    return Mono.fromCompletionStage(future.thenApply(account -> account));
+  }
+
+  public void invalidate(String accountId) {
+    cache.synchronous().invalidate(accountId);
+  }
+
+  public void invalidateAll() {
+    cache.synchronous().invalidateAll();
+  }
+}
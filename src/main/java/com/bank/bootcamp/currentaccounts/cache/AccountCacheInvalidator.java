@@ -0,0 +1,70 @@
+package com.bank.bootcamp.currentaccounts.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import javax.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+// Invalida la cache en todas las instancias cuando cambian los datos de alta de una cuenta.
+// Los cambios de saldo se filtran en el servidor para no recibir un evento por movimiento.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountCacheInvalidator {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final AccountCache accountCache;
+  private final Environment env;
+  private Disposable subscription;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    var enabled = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("account.cache.invalidation.enabled")).orElse("true"));
+    if (!enabled)
+      return;
+
+    var filter = Aggregation.newAggregation(Aggregation.match(new Criteria().orOperator(
+        Criteria.where("operationType").in("replace", "delete", "invalidate"),
+        Criteria.where("updateDescription.updatedFields.customerId").exists(true),
+        Criteria.where("updateDescription.updatedFields.customerType").exists(true),
+        Criteria.where("updateDescription.updatedFields.maintenanceFee").exists(true))));
+
+    subscription = mongoTemplate.changeStream(mongoTemplate.getCollectionName(Account.class),
+        ChangeStreamOptions.builder().filter(filter).build(), Document.class)
+        .doOnNext(event -> {
+          var key = event.getRaw() == null ? null : event.getRaw().getDocumentKey();
+          if (key == null || !key.containsKey("_id")) {
+            accountCache.invalidateAll();
+          } else {
+            var id = key.get("_id");
+            accountCache.invalidate(id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue());
+          }
+        })
+        // Sin replica set no hay change streams: el TTL de la cache acota cuánto puede durar un dato viejo
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1))
+            .doBeforeRetry(signal -> {
+              log.warn("Account change stream failed, retrying: {}", signal.failure().getMessage());
+              accountCache.invalidateAll();
+            }))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null)
+      subscription.dispose();
+  }
+}
@@ -0,0 +1,92 @@
+package com.bank.bootcamp.currentaccounts.config;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Cliente HTTP compartido para las llamadas al gateway (créditos y productos). El pool tiene límites explícitos
+// y publica sus métricas (reactor.netty.connection.provider.*) con el nombre "gateway"
+@Configuration
+public class GatewayWebClientConfig {
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider gatewayConnectionProvider(Environment env) {
+    return ConnectionProvider.builder("gateway")
+        .maxConnections(Integer.parseInt(Optional.ofNullable(env.getProperty("gateway.pool.max-connections")).orElse("200")))
+        .pendingAcquireMaxCount(Integer.parseInt(Optional.ofNullable(env.getProperty("gateway.pool.pending-acquire-max-count")).orElse("1000")))
+        .pendingAcquireTimeout(Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("gateway.pool.pending-acquire-timeout-millis")).orElse("5000"))))
+        // Menor que el idle timeout del gateway, así no se reutiliza una conexión que el otro extremo ya cerró
+        .maxIdleTime(Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("gateway.pool.max-idle-millis")).orElse("30000"))))
+        .maxLifeTime(Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("gateway.pool.max-life-millis")).orElse("300000"))))
+        .evictInBackground(Duration.ofSeconds(30))
+        .metrics(true)
+        .build();
+  }
+
+  @Bean
+  public WebClient gatewayWebClient(WebClient.Builder builder, ConnectionProvider gatewayConnectionProvider, Environment env) {
+    var url = env.getProperty("gateway.url");
+    var connectTimeout = Integer.parseInt(Optional.ofNullable(env.getProperty("gateway.connect-timeout-millis")).orElse("2000"));
+    var responseTimeout = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("gateway.response-timeout-millis")).orElse("5000")));
+    var http2 = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("gateway.http2")).orElse("false"));
+
+    var httpClient = HttpClient.create(gatewayConnectionProvider)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .responseTimeout(responseTimeout)
+        .keepAlive(true)
+        .compress(true);
+    if (http2) {
+      // Con HTTP/2 varias solicitudes comparten cada conexión; se mantiene HTTP/1.1 por si el gateway no lo soporta
+      httpClient = url != null && url.startsWith("https")
+          ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+          : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+    // El builder de Spring Boot ya registra las métricas http.client.requests
+    return builder.clone()
+        .baseUrl(url)
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .build();
+  }
+
+  // Un circuit breaker por servicio del gateway ("credits" y el recurso de cada tipo de producto), configurable con
+  // gateway.circuit-breaker.<servicio>.*. El TimeLimiter de resilience4j corta a 1 s por defecto, antes que el cliente
+  // HTTP: aquí debe quedar por encima de gateway.response-timeout-millis
+  @Bean
+  public Customizer<ReactiveResilience4JCircuitBreakerFactory> gatewayCircuitBreakers(Environment env) {
+    var connectTimeout = Long.parseLong(Optional.ofNullable(env.getProperty("gateway.connect-timeout-millis")).orElse("2000"));
+    var responseTimeout = Long.parseLong(Optional.ofNullable(env.getProperty("gateway.response-timeout-millis")).orElse("5000"));
+    return factory -> factory.configureDefault(id -> {
+      var prefix = "gateway.circuit-breaker." + id + ".";
+      var timeout = Long.parseLong(Optional.ofNullable(env.getProperty(prefix + "timeout-millis")).orElse(String.valueOf(connectTimeout + responseTimeout + 1000)));
+      if (timeout <= responseTimeout)
+        throw new IllegalStateException(prefix + "timeout-millis (" + timeout + ") must be greater than gateway.response-timeout-millis (" + responseTimeout + ")");
+      var slidingWindowSize = Integer.parseInt(Optional.ofNullable(env.getProperty(prefix + "sliding-window-size")).orElse("50"));
+      return new Resilience4JConfigBuilder(id)
+          .timeLimiterConfig(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(timeout)).build())
+          .circuitBreakerConfig(CircuitBreakerConfig.custom()
+              .slidingWindowSize(slidingWindowSize)
+              .minimumNumberOfCalls(Math.min(slidingWindowSize, 10))
+              .failureRateThreshold(Float.parseFloat(Optional.ofNullable(env.getProperty(prefix + "failure-rate-threshold")).orElse("50")))
+              .waitDurationInOpenState(Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty(prefix + "wait-in-open-millis")).orElse("10000"))))
+              // Un rechazo de negocio es una respuesta válida del servicio, no una falla
+              .ignoreExceptions(BankValidationException.class)
+              .build())
+          .build();
+    });
+  }
+}
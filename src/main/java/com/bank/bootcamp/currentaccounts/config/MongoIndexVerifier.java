@@ -0,0 +1,57 @@
+package com.bank.bootcamp.currentaccounts.config;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Compara los índices declarados en las entidades con los existentes en cada colección
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexVerifier {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final Environment env;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void verify() {
+    var failOnMissing = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("account.indexes.fail-on-missing")).orElse("false"));
+    var mappingContext = mongoTemplate.getConverter().getMappingContext();
+    var resolver = IndexResolver.create(mappingContext);
+    var missing = new ArrayList<String>();
+
+    for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+      if (!entity.isAnnotationPresent(Document.class))
+        continue;
+      var existing = mongoTemplate.indexOps(entity.getCollection()).getIndexInfo()
+          .map(IndexInfo::getName)
+          .collect(Collectors.toSet())
+          .block();
+      resolver.resolveIndexFor(entity.getTypeInformation()).forEach(index -> {
+        var name = String.valueOf(index.getIndexOptions().get("name"));
+        if (!existing.contains(name)) {
+          missing.add(entity.getCollection() + "." + name);
+        }
+      });
+    }
+
+    if (missing.isEmpty()) {
+      log.info("All declared Mongo indexes are present");
+    } else if (failOnMissing) {
+      throw new IllegalStateException("Missing Mongo indexes: " + missing);
+    } else {
+      log.warn("Missing Mongo indexes: {}", missing);
+    }
+  }
+}
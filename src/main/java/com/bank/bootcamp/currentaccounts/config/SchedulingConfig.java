@@ -0,0 +1,22 @@
+package com.bank.bootcamp.currentaccounts.config;
+
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Los jobs bloquean su hilo hasta terminar y el scheduler por defecto tiene uno solo: un cobro de cuotas o un cierre
+// de horas dejaría sin ejecutar al despachador de transferencias. Cada @Scheduled ocupa a lo sumo un hilo a la vez,
+// así que con al menos un hilo por job ninguno espera a otro (scheduling.pool-size)
+@Configuration
+public class SchedulingConfig {
+
+  @Bean
+  public ThreadPoolTaskScheduler taskScheduler(Environment env) {
+    var scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setPoolSize(Integer.parseInt(Optional.ofNullable(env.getProperty("scheduling.pool-size")).orElse("8")));
+    scheduler.setThreadNamePrefix("jobs-");
+    return scheduler;
+  }
+}
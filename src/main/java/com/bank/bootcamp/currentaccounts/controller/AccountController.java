@@ -1,20 +1,42 @@
 package com.bank.bootcamp.currentaccounts.controller;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.dto.BulkTransactionResult;
 import com.bank.bootcamp.currentaccounts.dto.CreateAccountDTO;
 import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.MovementCursor;
 import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
 import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerAccounts;
 import com.bank.bootcamp.currentaccounts.entity.CustomerType;
 import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
 import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.BalanceStreamService;
+import com.bank.bootcamp.currentaccounts.service.BulkTransactionService;
+import com.bank.bootcamp.currentaccounts.service.CustomerAccountsProjection;
+import com.bank.bootcamp.currentaccounts.service.IdempotencyService;
+import com.bank.bootcamp.currentaccounts.service.StatementService;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -25,15 +47,35 @@ import reactor.core.publisher.Mono;
 public class AccountController {
 
   private final AccountService accountService;
+  private final BulkTransactionService bulkTransactionService;
+  private final TransferService transferService;
+  private final IdempotencyService idempotencyService;
+  private final StatementService statementService;
+  private final BalanceStreamService balanceStreamService;
+  private final CustomerAccountsProjection customerAccountsProjection;
   
   @GetMapping("/balance/{accountId}")
   public Mono<BalanceDTO> getBalanceByAccountId(@PathVariable("accountId") String accountId) {
     return accountService.getBalanceByAccountId(accountId);
   }
   
+  // Saldo al final del día indicado (yyyy-MM-dd), calculado desde el último cierre mensual
+  @GetMapping("/balance/{accountId}/asOf/{date}")
+  public Mono<BalanceDTO> getBalanceByAccountIdAsOf(@PathVariable("accountId") String accountId,
+      @PathVariable("date") @DateTimeFormat(iso = ISO.DATE) LocalDate date) {
+    return accountService.getBalanceByAccountIdAsOf(accountId, date);
+  }
+  
+  // Reemplaza el polling de /balance/{accountId}: emite el saldo actual y luego uno por cada cambio
+  @GetMapping(value = "/balance/{accountId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<BalanceDTO>> streamBalance(@PathVariable("accountId") String accountId) {
+    return balanceStreamService.subscribe(accountId)
+        .map(balance -> ServerSentEvent.builder(balance).event("balance").build());
+  }
+  
   @GetMapping("/balance/byCustomer/{customerType}/{customerId}")
   public Flux<BalanceDTO> getBalancesByCustomerId(@PathVariable("customerId") String customerId, @PathVariable("customerType") CustomerType customerType) {
-    return accountService.getBalancesByCustomerId(customerId, customerType);
+    return customerAccountsProjection.getBalances(customerId, customerType);
   }
   
   @PostMapping
@@ -41,26 +83,84 @@ public class AccountController {
     return accountService.createAccount(dto).map(Account::getId);
   }
   
+  // Con Idempotency-Key los reintentos devuelven el número de operación original sin registrar otro movimiento
   @PostMapping("/transaction")
-  public Mono<Integer> createTransaction(@RequestBody CreateTransactionDTO dto) {
-    return accountService.createTransaction(dto).map(Transaction::getOperationNumber);
+  public Mono<Integer> createTransaction(@RequestBody CreateTransactionDTO dto,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return idempotencyService.execute("transaction", idempotencyKey, dto,
+        () -> accountService.createTransaction(dto).map(Transaction::getOperationNumber));
   }
   
+  // Con Idempotency-Key cada línea sin referencia propia queda identificada por la clave y su posición: reenviar
+  // el archivo devuelve los números de operación ya registrados en vez de repetir los movimientos
+  @PostMapping(value = "/transaction/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BulkTransactionResult> createTransactions(@RequestBody Flux<CreateTransactionDTO> dtos,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return bulkTransactionService.createTransactions(dtos, idempotencyKey);
+  }
+  
+  // Devuelve el id de la transferencia apenas se registra el débito; el abono al destino se sigue con GET /transfer/{transferId}
   @PostMapping("/transfer")
-  public Mono<Integer> transfer(@RequestBody TransferDTO dto) {
-    return accountService.transfer(dto);
+  public Mono<String> transfer(@RequestBody TransferDTO dto,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return idempotencyService.execute("transfer", idempotencyKey, dto, () -> transferService.transfer(dto));
+  }
+  
+  @GetMapping("/transfer/{transferId}")
+  public Mono<Transfer> getTransfer(@PathVariable("transferId") String transferId) {
+    return transferService.getTransfer(transferId);
   }
   
+  // Las consultas por cliente se leen de la proyección CustomerAccounts; si está atrasada se consulta el origen
   @GetMapping("/byCustomer/{customerType}/{customerId}")
   public Flux<Account> getAccountsByCustomer(@PathVariable("customerId") String customerId, @PathVariable("customerType") CustomerType customerType) {
-    return accountService.getAccountsByCustomer(customerId, customerType);
+    return customerAccountsProjection.getAccounts(customerId, customerType);
   }
   
+  // Cuentas, saldos y cantidad de movimientos del mes en una sola respuesta
+  @GetMapping("/byCustomer/{customerType}/{customerId}/summary")
+  public Mono<CustomerAccounts> getCustomerSummary(@PathVariable("customerId") String customerId, @PathVariable("customerType") CustomerType customerType) {
+    return customerAccountsProjection.getSummary(customerId, customerType);
+  }
+  
+  // Con Accept application/x-ndjson la respuesta se emite en streaming; after/limit paginan por cursor
   @GetMapping("movements/{accountId}/{year}/{month}")
   public Flux<Transaction> getMovementsByAccountAndPeriod(
       @PathVariable("accountId") String accountId,
-      @PathVariable("year") Integer year, @PathVariable("month") Integer month) {
-    return accountService.getTransactionsByAccountIdAndPeriod(accountId, LocalDate.of(year, month, 1));
+      @PathVariable("year") Integer year, @PathVariable("month") Integer month,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return accountService.getTransactionsByAccountIdAndPeriod(accountId, LocalDate.of(year, month, 1), after, limit);
+  }
+  
+  @GetMapping(value = "movements/{accountId}/{year}/{month}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Transaction>> streamMovementEvents(
+      @PathVariable("accountId") String accountId,
+      @PathVariable("year") Integer year, @PathVariable("month") Integer month,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    // El id de cada evento es su cursor, al reconectar el cliente continúa desde Last-Event-ID
+    return accountService.getTransactionsByAccountIdAndPeriod(accountId, LocalDate.of(year, month, 1), lastEventId != null ? lastEventId : after, limit)
+        .map(tx -> ServerSentEvent.builder(tx).id(MovementCursor.of(tx).toString()).build());
+  }
+  
+  // Estado de cuenta del mes cerrado (CSV comprimido); el archivo se envía desde disco con zero-copy
+  @GetMapping("statement/{accountId}/{year}/{month}")
+  public Mono<Void> downloadStatement(
+      @PathVariable("accountId") String accountId,
+      @PathVariable("year") Integer year, @PathVariable("month") Integer month,
+      ServerHttpResponse response) {
+    var period = YearMonth.of(year, month);
+    return statementService.getStatement(accountId, period).flatMap(path -> {
+      var size = path.toFile().length();
+      response.getHeaders().setContentType(MediaType.parseMediaType("application/gzip"));
+      response.getHeaders().setContentLength(size);
+      response.getHeaders().setContentDisposition(ContentDisposition.attachment().filename(accountId + "-" + period + ".csv.gz").build());
+      if (response instanceof ZeroCopyHttpOutputMessage)
+        return ((ZeroCopyHttpOutputMessage) response).writeWith(path, 0, size);
+      return response.writeWith(DataBufferUtils.read(path, new DefaultDataBufferFactory(), 8192));
+    });
   }
   
-}
\ No newline at end of file
+}
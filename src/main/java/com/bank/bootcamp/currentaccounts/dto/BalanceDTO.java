@@ -1,5 +1,7 @@
 package com.bank.bootcamp.currentaccounts.dto;
 
+import java.math.BigDecimal;
+import com.bank.bootcamp.currentaccounts.entity.Account;
 import lombok.Data;
 
 @Data
@@ -7,6 +9,15 @@ public class BalanceDTO {
   private String accountId;
   private String type;
   private Integer accountNumber;
-  private Double amount;
-  private Double maintenanceFee;
-}
\ No newline at end of file
+  private BigDecimal amount;
+  private BigDecimal maintenanceFee;
+
+  public static BalanceDTO of(Account account, Long balance) {
+    var balanceDTO = new BalanceDTO();
+    balanceDTO.setAccountId(account.getId());
+    balanceDTO.setMaintenanceFee(Money.toDecimal(account.getMaintenanceFee()));
+    balanceDTO.setType("Current Account");
+    balanceDTO.setAmount(Money.toDecimal(balance));
+    return balanceDTO;
+  }
+}
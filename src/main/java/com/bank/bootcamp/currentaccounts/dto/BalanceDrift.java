@@ -0,0 +1,16 @@
+package com.bank.bootcamp.currentaccounts.dto;
+
+import lombok.Data;
+
+@Data
+public class BalanceDrift {
+  private String accountId;
+  private Long snapshot;
+  private Long version;
+  private Long ledger;
+  private Boolean corrected = Boolean.FALSE;
+  
+  public Long getDrift() {
+    return ledger - snapshot;
+  }
+}
@@ -0,0 +1,29 @@
+package com.bank.bootcamp.currentaccounts.dto;
+
+import lombok.Data;
+
+@Data
+public class BulkTransactionResult {
+  
+  // Posición de la línea en el archivo recibido
+  private Long index;
+  private String accountId;
+  private Integer operationNumber;
+  private String error;
+  
+  public static BulkTransactionResult ok(Long index, String accountId, Integer operationNumber) {
+    var result = new BulkTransactionResult();
+    result.setIndex(index);
+    result.setAccountId(accountId);
+    result.setOperationNumber(operationNumber);
+    return result;
+  }
+  
+  public static BulkTransactionResult error(Long index, String accountId, String error) {
+    var result = new BulkTransactionResult();
+    result.setIndex(index);
+    result.setAccountId(accountId);
+    result.setError(error);
+    return result;
+  }
+}
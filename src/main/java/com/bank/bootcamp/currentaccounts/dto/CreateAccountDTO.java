@@ -1,5 +1,6 @@
 package com.bank.bootcamp.currentaccounts.dto;
 
+import java.math.BigDecimal;
 import com.bank.bootcamp.currentaccounts.entity.Account;
 import com.bank.bootcamp.currentaccounts.entity.CustomerType;
 import lombok.Data;
@@ -8,16 +9,16 @@ import lombok.Data;
 public class CreateAccountDTO {
 
   private String customerId;
-  private Double maintenanceFee;
+  private BigDecimal maintenanceFee;
   private CustomerType customerType;
-  private Double openingAmount;
+  private BigDecimal openingAmount;
   private String profile;
   
   public Account toAccount() {
     var account = new Account();
     account.setCustomerId(customerId);
     account.setCustomerType(customerType);
-    account.setMaintenanceFee(maintenanceFee);
+    account.setMaintenanceFee(maintenanceFee == null ? null : Money.toMinor(maintenanceFee));
     return account;
   }
 }
@@ -1,5 +1,7 @@
 package com.bank.bootcamp.currentaccounts.dto;
 
+import java.math.BigDecimal;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
 import lombok.Data;
 
 @Data
@@ -8,8 +10,21 @@ public class CreateTransactionDTO {
   private String accountId;
   private String agent;
   private String description;
-  private Double amount;
+  private BigDecimal amount;
   private Boolean createByMaintenanceFee = Boolean.FALSE;
   private Boolean createByComission = Boolean.FALSE;
+  // Clave de idempotencia del movimiento. En los abonos de transferencias a otros productos es el id de la transferencia;
+  // en la carga masiva, la propia de la línea o Idempotency-Key + ":" + posición
+  private String reference;
   
+  // El id no se copia: lo genera Mongo al guardar (ModelMapper asignaba accountId como id del movimiento)
+  public Transaction toTransaction() {
+    var transaction = new Transaction();
+    transaction.setAccountId(accountId);
+    transaction.setAgent(agent);
+    transaction.setDescription(description);
+    transaction.setAmount(amount == null ? null : Money.toMinor(amount));
+    transaction.setReference(reference);
+    return transaction;
+  }
 }
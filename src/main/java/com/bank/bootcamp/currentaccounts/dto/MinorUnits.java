@@ -0,0 +1,54 @@
+package com.bank.bootcamp.currentaccounts.dto;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+// Importe guardado en unidades mínimas (long) que en JSON se lee y escribe como decimal, p.e. 1050 <-> 10.50
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = MinorUnits.Serializer.class)
+@JsonDeserialize(using = MinorUnits.Deserializer.class)
+public @interface MinorUnits {
+
+  class Serializer extends StdSerializer<Long> {
+    private static final long serialVersionUID = 1L;
+
+    public Serializer() {
+      super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      generator.writeNumber(Money.toDecimal(value));
+    }
+  }
+
+  class Deserializer extends StdDeserializer<Long> {
+    private static final long serialVersionUID = 1L;
+
+    public Deserializer() {
+      super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      var amount = parser.getDecimalValue();
+      if (!Money.isValid(amount))
+        return (Long) context.handleWeirdNumberValue(Long.class, amount, "at most %s decimals", Money.SCALE);
+      return Money.toMinor(amount);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.bank.bootcamp.currentaccounts.dto;
+
+import java.math.BigDecimal;
+
+// Los importes se guardan y operan como long en unidades mínimas (céntimos): las sumas en Mongo y en memoria son exactas
+// y no crean objetos. En la API siguen siendo decimales con dos posiciones; la conversión se hace solo en el borde
+public final class Money {
+
+  public static final int SCALE = 2;
+
+  private Money() {
+  }
+
+  // Fracciones de céntimo no se redondean: se rechazan en la validación
+  public static boolean isValid(BigDecimal amount) {
+    if (amount == null || amount.stripTrailingZeros().scale() > SCALE)
+      return false;
+    return amount.movePointRight(SCALE).abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0;
+  }
+
+  public static long toMinor(BigDecimal amount) {
+    return amount.movePointRight(SCALE).longValueExact();
+  }
+
+  public static BigDecimal toDecimal(Long minor) {
+    return minor == null ? null : BigDecimal.valueOf(minor, SCALE);
+  }
+
+  // Porcentaje expresado en puntos básicos (1/10000), redondeado al céntimo (half-up)
+  public static long percentage(long minor, long basisPoints) {
+    var scaled = Math.multiplyExact(Math.abs(minor), basisPoints);
+    var result = scaled / 10_000 + (scaled % 10_000 >= 5_000 ? 1 : 0);
+    return minor < 0 ? -result : result;
+  }
+}
@@ -0,0 +1,45 @@
+package com.bank.bootcamp.currentaccounts.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import lombok.Data;
+
+// Posición de un movimiento en el orden (registerDate, operationNumber), p.e. 2022-04-03T10:15:30.123_57
+@Data
+public class MovementCursor {
+
+  public static final Comparator<Transaction> ORDER = Comparator.comparing(Transaction::getRegisterDate)
+      .thenComparing(Transaction::getOperationNumber);
+
+  private LocalDateTime registerDate;
+  private Integer operationNumber;
+
+  public static MovementCursor of(Transaction transaction) {
+    var cursor = new MovementCursor();
+    cursor.setRegisterDate(transaction.getRegisterDate());
+    cursor.setOperationNumber(transaction.getOperationNumber());
+    return cursor;
+  }
+
+  public static MovementCursor parse(String value) throws BankValidationException {
+    var separator = value.lastIndexOf('_');
+    if (separator < 0)
+      throw new BankValidationException("Invalid cursor " + value);
+    try {
+      var cursor = new MovementCursor();
+      cursor.setRegisterDate(LocalDateTime.parse(value.substring(0, separator)));
+      cursor.setOperationNumber(Integer.parseInt(value.substring(separator + 1)));
+      return cursor;
+    } catch (DateTimeParseException | NumberFormatException e) {
+      throw new BankValidationException("Invalid cursor " + value, e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return registerDate + "_" + operationNumber;
+  }
+}
@@ -0,0 +1,10 @@
+package com.bank.bootcamp.currentaccounts.dto;
+
+import lombok.Data;
+
+@Data
+public class MovementTotals {
+
+  private Long total = 0L;
+  private Long count = 0L;
+}
@@ -1,5 +1,6 @@
 package com.bank.bootcamp.currentaccounts.dto;
 
+import java.math.BigDecimal;
 import lombok.Data;
 
 @Data
@@ -8,6 +9,6 @@ public class TransferDTO {
   private String sourceAccountId;
   private AccountType targetAccountType;
   private String targetAccountId;
-  private Double amount;
+  private BigDecimal amount;
 
 }
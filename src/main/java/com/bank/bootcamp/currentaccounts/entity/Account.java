@@ -1,10 +1,15 @@
 package com.bank.bootcamp.currentaccounts.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import com.bank.bootcamp.currentaccounts.dto.MinorUnits;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Document("Accounts")
+@CompoundIndex(name = "customer_type", def = "{ 'customerId': 1, 'customerType': 1 }")
 @Data
 public class Account {
 
@@ -13,5 +18,14 @@ public class Account {
   
   private CustomerType customerType;
   private String customerId;
-  private Double maintenanceFee;
+  // Importes en céntimos (ver Money)
+  @MinorUnits
+  private Long maintenanceFee;
+  // Saldo materializado, se actualiza con cada movimiento registrado. Es interno: el saldo se consulta con BalanceDTO
+  @JsonIgnore
+  private Long balance;
+  // Se incrementa con cada cambio de saldo, evita que un save() pise el saldo materializado
+  @JsonIgnore
+  @Version
+  private Long version;
 }
@@ -0,0 +1,47 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import com.bank.bootcamp.currentaccounts.dto.MinorUnits;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+// Proyección de lectura: las cuentas de un cliente con su saldo y movimientos del mes, en un solo documento.
+// La mantiene CustomerAccountsProjection a partir de los cambios en Accounts y MonthlyMovementCounters
+@Document("CustomerAccounts")
+@CompoundIndex(name = "accounts_account", def = "{ 'accounts.accountId': 1 }")
+@Data
+public class CustomerAccounts {
+
+  // customerType + "-" + customerId
+  @Id
+  private String id;
+  private String customerId;
+  private CustomerType customerType;
+  private List<Entry> accounts = new ArrayList<>();
+  private LocalDateTime createdDate;
+  private LocalDateTime updatedDate;
+
+  public static String viewId(String customerId, CustomerType customerType) {
+    return customerType + "-" + customerId;
+  }
+
+  @Data
+  public static class Entry {
+    private String accountId;
+    @MinorUnits
+    private Long maintenanceFee;
+    @MinorUnits
+    private Long balance;
+    // Versión de la cuenta con la que se escribió el saldo, los cambios más viejos no se aplican
+    @JsonIgnore
+    private Long version;
+    // Periodo (yyyy-MM) al que corresponde movements
+    private String period;
+    private Long movements;
+  }
+}
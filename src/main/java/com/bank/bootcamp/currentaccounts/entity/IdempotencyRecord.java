@@ -0,0 +1,26 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+@Document("IdempotencyKeys")
+@Data
+public class IdempotencyRecord {
+
+  // operación + ":" + Idempotency-Key
+  @Id
+  private String id;
+  // Huella del cuerpo de la solicitud, la misma clave no se puede usar con otros datos
+  private String fingerprint;
+  private Boolean completed;
+  private Object result;
+  // Mientras no termine, otra solicitud con la misma clave solo puede retomar la operación después de esta hora.
+  // Sin lease la operación ya se ejecutó y su resultado no se pudo guardar: no se retoma
+  private LocalDateTime leaseUntil;
+  // Mongo elimina el registro un día después de creado
+  @Indexed(name = "expire_after", expireAfter = "1d")
+  private LocalDateTime createdDate;
+}
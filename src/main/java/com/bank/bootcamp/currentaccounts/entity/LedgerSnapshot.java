@@ -0,0 +1,26 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import com.bank.bootcamp.currentaccounts.dto.MinorUnits;
+import lombok.Data;
+
+// Saldo de cada cuenta al cierre de un mes: los saldos históricos se calculan desde aquí sin recorrer todo el ledger
+@Document("LedgerSnapshots")
+@CompoundIndex(name = "account_period", def = "{ 'accountId': 1, 'period': -1 }")
+@Data
+public class LedgerSnapshot {
+
+  // accountId + "-" + periodo (yyyy-MM)
+  @Id
+  private String id;
+  private String accountId;
+  private String period;
+  @MinorUnits
+  private Long closingBalance;
+  // Movimientos registrados en el mes
+  private Long movementCount;
+  private LocalDateTime closedDate;
+}
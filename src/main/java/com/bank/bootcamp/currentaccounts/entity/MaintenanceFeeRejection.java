@@ -0,0 +1,22 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+// Cuota de mantenimiento rechazada (saldo insuficiente) pendiente de reintento; se borra cuando se cobra
+@Document("MaintenanceFeeRejections")
+@CompoundIndex(name = "period_account", def = "{ 'period': 1, 'accountId': 1 }")
+@Data
+public class MaintenanceFeeRejection {
+
+  // accountId + "-" + periodo (yyyy-MM)
+  @Id
+  private String id;
+  private String accountId;
+  private String period;
+  private String reason;
+  private LocalDateTime rejectedDate;
+}
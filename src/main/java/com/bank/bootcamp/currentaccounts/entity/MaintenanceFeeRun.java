@@ -0,0 +1,27 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+// Avance del cobro mensual de la cuota de mantenimiento: permite reanudar desde la última cuenta confirmada
+@Document("MaintenanceFeeRuns")
+@Data
+public class MaintenanceFeeRun {
+
+  // Periodo cobrado (yyyy-MM)
+  @Id
+  private String id;
+  // Todas las cuentas con id menor o igual ya fueron procesadas
+  private String lastAccountId;
+  private Long charged;
+  // Cuotas rechazadas pendientes; el detalle por cuenta está en MaintenanceFeeRejections
+  private Long rejected;
+  private Boolean completed;
+  // Instancia que ejecuta el cobro; otra solo lo toma al vencer leaseUntil
+  private String leaseId;
+  private LocalDateTime leaseUntil;
+  private LocalDateTime startedDate;
+  private LocalDateTime updatedDate;
+}
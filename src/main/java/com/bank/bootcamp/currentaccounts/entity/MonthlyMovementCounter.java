@@ -0,0 +1,17 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+@Document("MonthlyMovementCounters")
+@Data
+public class MonthlyMovementCounter {
+
+  // accountId + "-" + periodo (yyyy-MM)
+  @Id
+  private String id;
+  private String accountId;
+  private String period;
+  private Long count;
+}
@@ -2,10 +2,20 @@ package com.bank.bootcamp.currentaccounts.entity;
 
 import java.time.LocalDateTime;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import com.bank.bootcamp.currentaccounts.dto.MinorUnits;
 import lombok.Data;
 
 @Document("Transactions")
+@CompoundIndex(name = "account_date_operation", def = "{ 'accountId': 1, 'registerDate': 1, 'operationNumber': 1 }")
+// Cubre la agregación del saldo: el $sum se resuelve solo con el índice, sin leer documentos
+@CompoundIndex(name = "account_amount", def = "{ 'accountId': 1, 'amount': 1 }")
+// Una sola cuota de mantenimiento por cuenta y mes; el filtro parcial deja fuera los demás movimientos
+@CompoundIndex(name = "account_fee_period", def = "{ 'accountId': 1, 'feePeriod': 1 }", unique = true, partialFilter = "{ 'feePeriod': { $exists: true } }")
+// Un solo movimiento por referencia: un reintento de la misma línea no vuelve a registrarse
+@CompoundIndex(name = "reference", def = "{ 'reference': 1 }", unique = true, partialFilter = "{ 'reference': { $exists: true } }")
 @Data
 public class Transaction {
 
@@ -16,6 +26,15 @@ public class Transaction {
   private String accountId;
   private String agent;
   private String description;
-  private Double amount;
+  // En céntimos (ver Money): el $sum del saldo es exacto
+  @MinorUnits
+  private Long amount;
+  // Solo en los movimientos generados por una transferencia (débito, comisión y reversión)
+  @Indexed(sparse = true)
+  private String transferId;
+  // Solo en el cobro de la cuota de mantenimiento: mes cobrado (yyyy-MM)
+  private String feePeriod;
+  // Clave de idempotencia del movimiento (ver CreateTransactionDTO.reference); las comisiones no la llevan
+  private String reference;
   
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.MinorUnits;
+import lombok.Data;
+
+// Outbox de transferencias: el débito se registra al recibir la solicitud y el abono
+// al producto destino (o la reversión del débito) lo completa TransferDispatchJob
+@Document("Transfers")
+@CompoundIndex(name = "status_next_attempt", def = "{ 'status': 1, 'nextAttemptAt': 1 }")
+@Data
+public class Transfer {
+
+  @Id
+  private String id;
+  private String sourceAccountId;
+  private AccountType targetAccountType;
+  private String targetAccountId;
+  @MinorUnits
+  private Long amount;
+  private TransferStatus status;
+  private Integer sourceOperationNumber;
+  private Integer targetOperationNumber;
+  private Integer reversalOperationNumber;
+  private Integer attempts;
+  private String lastError;
+  // Momento desde el que el dispatcher puede tomarla; al tomarla se mueve hacia adelante (lease)
+  private LocalDateTime nextAttemptAt;
+  // Identifica a quien tiene tomada la transferencia, solo ese proceso puede cambiar su estado
+  private String leaseId;
+  private LocalDateTime createdDate;
+  private LocalDateTime updatedDate;
+}
@@ -0,0 +1,8 @@
+package com.bank.bootcamp.currentaccounts.entity;
+
+public enum TransferStatus {
+
+  PENDING, DEBITED, CREDITED, COMPENSATING, COMPENSATED, FAILED,
+  // Se agotaron los intentos sin saber si el abono se aplicó: no se revierte, se revisa contra el producto destino
+  UNCERTAIN
+}
@@ -0,0 +1,63 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDrift;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+// Repara la diferencia entre el saldo materializado y el ledger. La reserva y el insert del movimiento son dos
+// escrituras: si el proceso cae entre ambas el saldo queda descontado sin movimiento y solo este job lo corrige.
+// Cada cuenta con diferencia incrementa bank.balance.drift, sobre el que se configura la alerta
+@Slf4j
+@Component
+public class BalanceReconciliationJob {
+
+  private final AccountRepository accountRepository;
+  private final AccountBalanceService accountBalanceService;
+  private final Environment env;
+  private final Counter drifted;
+
+  public BalanceReconciliationJob(AccountRepository accountRepository, AccountBalanceService accountBalanceService, Environment env,
+      MeterRegistry meterRegistry) {
+    this.accountRepository = accountRepository;
+    this.accountBalanceService = accountBalanceService;
+    this.env = env;
+    this.drifted = Counter.builder("bank.balance.drift")
+        .description("Accounts whose materialized balance did not match the ledger").register(meterRegistry);
+  }
+
+  // Semanal por defecto (account.balance-reconciliation.cron)
+  @Scheduled(cron = "${account.balance-reconciliation.cron:0 0 4 * * SUN}")
+  public void run() {
+    var drifts = reconcile().collectList().block();
+    if (drifts.isEmpty())
+      log.info("Balance reconciliation finished, no drift");
+    else
+      log.error("Balance reconciliation finished, {} account(s) with drift", drifts.size());
+  }
+
+  public Flux<BalanceDrift> reconcile() {
+    // En céntimos
+    var tolerance = Long.parseLong(Optional.ofNullable(env.getProperty("account.balance-reconciliation.tolerance")).orElse("0"));
+    var autoCorrect = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("account.balance-reconciliation.auto-correct")).orElse("true"));
+    var settleTime = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("account.balance-reconciliation.settle-millis")).orElse("2000")));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("account.balance-reconciliation.concurrency")).orElse("8"));
+
+    return accountRepository.findAll()
+        .flatMap(account -> accountBalanceService.reconcile(account.getId(), tolerance, autoCorrect, settleTime), concurrency)
+        .filter(drift -> drift.getSnapshot() != null && Math.abs(drift.getDrift()) > tolerance)
+        .doOnNext(drift -> {
+          drifted.increment();
+          log.warn("Balance drift on account {}: snapshot={} ledger={} corrected={}",
+              drift.getAccountId(), drift.getSnapshot(), drift.getLedger(), drift.getCorrected());
+        });
+  }
+}
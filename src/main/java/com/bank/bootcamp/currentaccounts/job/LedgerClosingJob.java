@@ -0,0 +1,66 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.repository.LedgerSnapshotRepository;
+import com.bank.bootcamp.currentaccounts.service.LedgerSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Cierre mensual del ledger. Recorre las cuentas por rangos de id en paralelo y omite las ya cerradas,
+// de modo que si se interrumpe basta con volver a ejecutarlo
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerClosingJob {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final LedgerSnapshotRepository ledgerSnapshotRepository;
+  private final LedgerSnapshotService ledgerSnapshotService;
+  private final Environment env;
+
+  @Scheduled(cron = "${ledger.closing.cron:0 30 0 1 * *}")
+  public void run() {
+    var period = YearMonth.now().minusMonths(1);
+    var closed = close(period).count().block();
+    log.info("Ledger closing for {} finished, {} account(s) closed", period, closed);
+  }
+
+  public Flux<LedgerSnapshot> close(YearMonth period) {
+    var rangeSize = Integer.parseInt(Optional.ofNullable(env.getProperty("ledger.closing.range-size")).orElse("500"));
+    var partitions = Integer.parseInt(Optional.ofNullable(env.getProperty("ledger.closing.partitions")).orElse("4"));
+
+    var accountIds = new Query().with(Sort.by("_id"));
+    accountIds.fields().include("_id");
+    return mongoTemplate.find(accountIds, Account.class)
+        .map(Account::getId)
+        .buffer(rangeSize)
+        .flatMap(range -> closeRange(range, period), partitions);
+  }
+
+  private Flux<LedgerSnapshot> closeRange(List<String> accountIds, YearMonth period) {
+    var snapshotIds = accountIds.stream().map(id -> LedgerSnapshotService.snapshotId(id, period)).collect(Collectors.toList());
+    return ledgerSnapshotRepository.findAllById(snapshotIds)
+        .map(LedgerSnapshot::getAccountId)
+        .collect(Collectors.toSet())
+        .flatMapMany(closed -> Flux.fromIterable(accountIds)
+            .filter(accountId -> !closed.contains(accountId))
+            .concatMap(accountId -> ledgerSnapshotService.close(accountId, period)
+                .onErrorResume(e -> {
+                  log.warn("Ledger closing for account {} and period {} failed: {}", accountId, period, e.getMessage());
+                  return Mono.empty();
+                })));
+  }
+}
@@ -0,0 +1,251 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.MaintenanceFeeRejection;
+import com.bank.bootcamp.currentaccounts.entity.MaintenanceFeeRun;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.service.BulkTransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Cobro mensual de la cuota de mantenimiento. Recorre las cuentas con un cursor ordenado por id, cobra cada rango
+// con el insert masivo y confirma el avance en MaintenanceFeeRuns en orden, así al reanudar se continúa desde la
+// última cuenta confirmada. Las cuentas con la cuota del mes ya cobrada se omiten. Las cuotas rechazadas por saldo
+// no detienen el avance: quedan en MaintenanceFeeRejections, una por cuenta. Cada día se reanuda el cobro del mes
+// anterior si quedó sin terminar y se reintentan sus rechazos
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MaintenanceFeeJob {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final BulkTransactionService bulkTransactionService;
+  private final Environment env;
+
+  @Scheduled(cron = "${maintenance-fee.cron:0 0 2 1 * *}")
+  public void run() {
+    var period = YearMonth.now().minusMonths(1);
+    bill(period)
+        .doOnNext(run -> log.info("Maintenance fee for {} finished, {} charged, {} rejected", period, run.getCharged(), run.getRejected()))
+        .switchIfEmpty(Mono.fromRunnable(() -> log.info("Maintenance fee for {} already completed or running on another instance", period)))
+        .block();
+  }
+
+  @Scheduled(cron = "${maintenance-fee.retry-cron:0 0 3 * * *}")
+  public void retry() {
+    var period = YearMonth.now().minusMonths(1);
+    retry(period)
+        .doOnNext(run -> log.info("Maintenance fee retry for {} finished, {} charged, {} still rejected", period, run.getCharged(), run.getRejected()))
+        .block();
+  }
+
+  // Un cobro que cayó o perdió el lease no vuelve a dispararse con run(): se reanuda aquí antes de reintentar los rechazos
+  public Mono<MaintenanceFeeRun> retry(YearMonth period) {
+    return mongoTemplate.findById(period.toString(), MaintenanceFeeRun.class)
+        .map(run -> Boolean.TRUE.equals(run.getCompleted()))
+        .defaultIfEmpty(false)
+        .flatMap(completed -> completed
+            ? Mono.<MaintenanceFeeRun>empty()
+            : bill(period).doOnNext(run -> log.info("Maintenance fee for {} resumed and finished, {} charged, {} rejected", period, run.getCharged(), run.getRejected())))
+        .then(Mono.defer(() -> retryRejected(period)));
+  }
+
+  public Mono<MaintenanceFeeRun> bill(YearMonth period) {
+    var rangeSize = Integer.parseInt(Optional.ofNullable(env.getProperty("maintenance-fee.range-size")).orElse("500"));
+    var partitions = Integer.parseInt(Optional.ofNullable(env.getProperty("maintenance-fee.partitions")).orElse(String.valueOf(Runtime.getRuntime().availableProcessors())));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("maintenance-fee.concurrency")).orElse("4"));
+    var maxAccountsPerSecond = Long.parseLong(Optional.ofNullable(env.getProperty("maintenance-fee.max-accounts-per-second")).orElse("5000"));
+    var lease = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("maintenance-fee.lease-millis")).orElse("600000")));
+    var leaseId = UUID.randomUUID().toString();
+
+    return claim(period, leaseId, lease)
+        .flatMap(run -> {
+          var accounts = new Query(where("maintenanceFee").gt(0)).with(Sort.by("_id")).cursorBatchSize(rangeSize);
+          if (run.getLastAccountId() != null)
+            accounts.addCriteria(where("_id").gt(run.getLastAccountId()));
+          accounts.fields().include("_id").include("maintenanceFee");
+
+          var ranges = mongoTemplate.find(accounts, Account.class).buffer(rangeSize);
+          // Límite de cuentas por segundo para no saturar Mongo
+          if (maxAccountsPerSecond > 0)
+            ranges = ranges.delayElements(Duration.ofMillis(rangeSize * 1000L / maxAccountsPerSecond));
+          return ranges
+              // Los rangos se cobran en paralelo pero se confirman en el orden del cursor
+              .flatMapSequential(range -> chargeRange(range, period, concurrency), partitions)
+              .concatMap(result -> checkpoint(period, leaseId, lease, result))
+              .then(Mono.defer(() -> complete(period, leaseId)));
+        });
+  }
+
+  // Toma el cobro del periodo si no está terminado y nadie tiene un lease vigente
+  private Mono<MaintenanceFeeRun> claim(YearMonth period, String leaseId, Duration lease) {
+    var now = LocalDateTime.now();
+    return mongoTemplate.findAndModify(
+        query(where("_id").is(period.toString()).and("completed").ne(true)
+            .orOperator(where("leaseUntil").is(null), where("leaseUntil").lt(now))),
+        new Update().set("leaseId", leaseId).set("leaseUntil", now.plus(lease)).set("updatedDate", now)
+            .setOnInsert("charged", 0L).setOnInsert("rejected", 0L).setOnInsert("startedDate", now),
+        options().upsert(true).returnNew(true),
+        MaintenanceFeeRun.class)
+        // Ya existe y está terminado o en curso en otra instancia
+        .onErrorResume(DuplicateKeyException.class, e -> Mono.empty());
+  }
+
+  private Mono<RangeResult> chargeRange(List<Account> accounts, YearMonth period, int concurrency) {
+    var accountIds = accounts.stream().map(Account::getId).collect(Collectors.toList());
+    var charged = new Query(where("accountId").in(accountIds).and("feePeriod").is(period.toString()));
+    charged.fields().include("accountId");
+    var result = new RangeResult(accountIds.get(accountIds.size() - 1));
+    return mongoTemplate.find(charged, Transaction.class)
+        .map(Transaction::getAccountId)
+        .collect(Collectors.toSet())
+        .flatMapMany(alreadyCharged -> bulkTransactionService.chargeMaintenanceFees(accounts.stream()
+            .filter(account -> !alreadyCharged.contains(account.getId()))
+            .map(account -> fee(account, period))
+            .collect(Collectors.toList()), period, concurrency))
+        .doOnNext(charge -> {
+          if (charge.getError() == null) {
+            result.charged++;
+          } else {
+            result.rejected++;
+            result.rejections.add(rejection(charge.getAccountId(), period, charge.getError()));
+            log.warn("Maintenance fee for account {} and period {} not charged: {}", charge.getAccountId(), period, charge.getError());
+          }
+        })
+        .then(Mono.just(result));
+  }
+
+  // Vuelve a cobrar las cuotas rechazadas de un periodo terminado, por rangos de cuentas. No necesita lease: el índice
+  // único por cuenta y periodo impide cobrar dos veces la misma cuota
+  public Mono<MaintenanceFeeRun> retryRejected(YearMonth period) {
+    var rangeSize = Integer.parseInt(Optional.ofNullable(env.getProperty("maintenance-fee.range-size")).orElse("500"));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("maintenance-fee.concurrency")).orElse("4"));
+    var rejections = query(where("period").is(period.toString())).with(Sort.by("accountId")).cursorBatchSize(rangeSize);
+    rejections.fields().include("accountId");
+    return mongoTemplate.findById(period.toString(), MaintenanceFeeRun.class)
+        .filter(run -> Boolean.TRUE.equals(run.getCompleted()))
+        .flatMap(run -> mongoTemplate.find(rejections, MaintenanceFeeRejection.class)
+            .map(MaintenanceFeeRejection::getAccountId)
+            .buffer(rangeSize)
+            .concatMap(pending -> retryRange(pending, period, concurrency))
+            .then(Mono.defer(() -> recount(period))));
+  }
+
+  private Mono<Void> retryRange(List<String> pending, YearMonth period, int concurrency) {
+    var accounts = new Query(where("_id").in(pending).and("maintenanceFee").gt(0)).with(Sort.by("_id"));
+    accounts.fields().include("_id").include("maintenanceFee");
+    return mongoTemplate.find(accounts, Account.class)
+        .collectList()
+        .flatMap(found -> found.isEmpty() ? Mono.just(new RangeResult(null)) : chargeRange(found, period, concurrency))
+        .flatMap(result -> {
+          // Salen las cobradas ahora, las ya cobradas y las cuentas que ya no tienen cuota; las rechazadas otra vez
+          // actualizan su motivo
+          var stillRejected = result.rejections.stream().map(MaintenanceFeeRejection::getAccountId).collect(Collectors.toSet());
+          var resolved = pending.stream().filter(id -> !stillRejected.contains(id))
+              .map(id -> rejectionId(id, period)).collect(Collectors.toList());
+          return Flux.fromIterable(result.rejections)
+              .concatMap(mongoTemplate::save)
+              .then(resolved.isEmpty()
+                  ? Mono.empty()
+                  : mongoTemplate.remove(new Query(where("_id").in(resolved)), MaintenanceFeeRejection.class))
+              .then(result.charged == 0
+                  ? Mono.empty()
+                  : mongoTemplate.updateFirst(query(where("_id").is(period.toString())), new Update().inc("charged", result.charged)
+                      .set("updatedDate", LocalDateTime.now()), MaintenanceFeeRun.class))
+              .then();
+        });
+  }
+
+  // Solo quien tiene el lease avanza el checkpoint; si lo perdió el cobro se detiene. Los rechazos se guardan antes:
+  // si el checkpoint no llega a confirmarse, reprocesar el rango vuelve a escribir el mismo documento
+  private Mono<MaintenanceFeeRun> checkpoint(YearMonth period, String leaseId, Duration lease, RangeResult result) {
+    var now = LocalDateTime.now();
+    return Flux.fromIterable(result.rejections)
+        .concatMap(mongoTemplate::save)
+        .then(Mono.defer(() -> mongoTemplate.findAndModify(
+            query(where("_id").is(period.toString()).and("leaseId").is(leaseId)),
+            new Update().set("lastAccountId", result.lastAccountId).inc("charged", result.charged).inc("rejected", result.rejected)
+                .set("leaseUntil", now.plus(lease)).set("updatedDate", now),
+            options().returnNew(true),
+            MaintenanceFeeRun.class)))
+        .switchIfEmpty(Mono.error(new IllegalStateException("Maintenance fee run for " + period + " lost its lease")));
+  }
+
+  // Al terminar, rejected pasa a ser el número de rechazos pendientes: un rango reprocesado tras una caída no lo duplica
+  private Mono<MaintenanceFeeRun> complete(YearMonth period, String leaseId) {
+    return mongoTemplate.count(query(where("period").is(period.toString())), MaintenanceFeeRejection.class)
+        .flatMap(rejected -> mongoTemplate.findAndModify(
+            query(where("_id").is(period.toString()).and("leaseId").is(leaseId)),
+            new Update().set("completed", true).set("rejected", rejected).set("leaseId", null).set("leaseUntil", null)
+                .set("updatedDate", LocalDateTime.now()),
+            options().returnNew(true),
+            MaintenanceFeeRun.class));
+  }
+
+  private Mono<MaintenanceFeeRun> recount(YearMonth period) {
+    return mongoTemplate.count(query(where("period").is(period.toString())), MaintenanceFeeRejection.class)
+        .flatMap(rejected -> mongoTemplate.findAndModify(
+            query(where("_id").is(period.toString()).and("completed").is(true)),
+            new Update().set("rejected", rejected).set("updatedDate", LocalDateTime.now()),
+            options().returnNew(true),
+            MaintenanceFeeRun.class));
+  }
+
+  public static String rejectionId(String accountId, YearMonth period) {
+    return accountId + "-" + period;
+  }
+
+  private MaintenanceFeeRejection rejection(String accountId, YearMonth period, String reason) {
+    var rejection = new MaintenanceFeeRejection();
+    rejection.setId(rejectionId(accountId, period));
+    rejection.setAccountId(accountId);
+    rejection.setPeriod(period.toString());
+    rejection.setReason(reason);
+    rejection.setRejectedDate(LocalDateTime.now());
+    return rejection;
+  }
+
+  private CreateTransactionDTO fee(Account account, YearMonth period) {
+    var dto = new CreateTransactionDTO();
+    dto.setAccountId(account.getId());
+    dto.setAgent("-");
+    dto.setDescription("Maintenance fee " + period);
+    dto.setAmount(Money.toDecimal(-account.getMaintenanceFee()));
+    dto.setCreateByMaintenanceFee(Boolean.TRUE);
+    return dto;
+  }
+
+  private static class RangeResult {
+    private final String lastAccountId;
+    private long charged;
+    private long rejected;
+    private final List<MaintenanceFeeRejection> rejections = new ArrayList<>();
+
+    RangeResult(String lastAccountId) {
+      this.lastAccountId = lastAccountId;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject.Type;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerAccounts;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Convierte los importes guardados como double a céntimos (long), redondeando al céntimo. Corre al arrancar,
+// antes de atender solicitudes, y solo toca los campos que siguen siendo double: volver a ejecutarla no cambia nada.
+// Al terminar deja una marca en Migrations y los siguientes arranques ya no recorren las colecciones.
+// Las instancias con la versión anterior deben estar detenidas, seguirían escribiendo importes en unidades
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MoneyMigration implements SmartInitializingSingleton {
+
+  private static final String MIGRATIONS = "Migrations";
+  private static final String MIGRATION_ID = "money-minor-units";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final Environment env;
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    var enabled = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("money.migration.enabled")).orElse("true"));
+    if (!enabled)
+      return;
+    var migrated = run().block();
+    if (migrated > 0)
+      log.info("Money migration finished, {} field(s) converted to minor units", migrated);
+  }
+
+  // Solo migra si no está la marca; la marca se guarda después de convertir todo, si el proceso cae antes la
+  // siguiente ejecución retoma lo que siga en double
+  public Mono<Long> run() {
+    return mongoTemplate.exists(query(where("_id").is(MIGRATION_ID)), MIGRATIONS)
+        .flatMap(done -> done
+            ? Mono.just(0L)
+            : migrate().flatMap(migrated -> mongoTemplate.save(new Document("_id", MIGRATION_ID)
+                .append("converted", migrated)
+                .append("completedDate", LocalDateTime.now()), MIGRATIONS)
+                .thenReturn(migrated)));
+  }
+
+  public Mono<Long> migrate() {
+    var transactions = mongoTemplate.getCollectionName(Transaction.class);
+    var archives = mongoTemplate.getCollectionNames().filter(name -> name.startsWith(transactions + "_"));
+    var fields = Flux.concat(
+        Flux.just(
+            List.of(transactions, "amount"),
+            List.of(mongoTemplate.getCollectionName(Account.class), "balance"),
+            List.of(mongoTemplate.getCollectionName(Account.class), "maintenanceFee"),
+            List.of(mongoTemplate.getCollectionName(LedgerSnapshot.class), "closingBalance"),
+            List.of(mongoTemplate.getCollectionName(Transfer.class), "amount")),
+        archives.map(archive -> List.of(archive, "amount")));
+    return fields
+        .concatMap(field -> toMinorUnits(field.get(0), field.get(1)))
+        .reduce(0L, Long::sum)
+        // La proyección se reconstruye desde las cuentas ya convertidas
+        .flatMap(migrated -> mongoTemplate.remove(new Query(new Criteria().orOperator(
+            where("accounts.balance").type(Type.doubleType()),
+            where("accounts.maintenanceFee").type(Type.doubleType()))), CustomerAccounts.class)
+            .map(DeleteResult::getDeletedCount)
+            .map(removed -> migrated + removed));
+  }
+
+  // Una sola actualización por campo, resuelta en el servidor: { $toLong: { $round: [ { $multiply: [ campo, 100 ] }, 0 ] } }
+  private Mono<Long> toMinorUnits(String collection, String field) {
+    var minorUnits = ConvertOperators.ToLong.toLong(
+        ArithmeticOperators.Round.roundValueOf(ArithmeticOperators.Multiply.valueOf(field).multiplyBy(100)).place(0));
+    return mongoTemplate.updateMulti(
+        new Query(where(field).type(Type.doubleType())),
+        AggregationUpdate.update().set(field).toValue(minorUnits),
+        collection)
+        .map(UpdateResult::getModifiedCount)
+        .doOnNext(modified -> {
+          if (modified > 0)
+            log.info("Converted {}.{} to minor units on {} document(s)", collection, field, modified);
+        });
+  }
+}
@@ -0,0 +1,53 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Optional;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.service.StatementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Genera en segundo plano los estados de cuenta del mes cerrado, después del cierre del ledger.
+// Los ya generados se omiten, así que una ejecución interrumpida se puede repetir
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementJob {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final StatementService statementService;
+  private final Environment env;
+
+  @Scheduled(cron = "${statements.cron:0 0 1 1 * *}")
+  public void run() {
+    var period = YearMonth.now().minusMonths(1);
+    var generated = generate(period).count().block();
+    log.info("Statements for {} finished, {} file(s) generated", period, generated);
+  }
+
+  public Flux<Path> generate(YearMonth period) {
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("statements.concurrency")).orElse(String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+    var accountIds = new Query();
+    accountIds.fields().include("_id");
+    return mongoTemplate.find(accountIds, Account.class)
+        .map(Account::getId)
+        .publishOn(Schedulers.boundedElastic())
+        .filter(accountId -> !Files.exists(statementService.statementPath(accountId, period)))
+        .flatMap(accountId -> statementService.generate(accountId, period)
+            .onErrorResume(e -> {
+              log.warn("Statement for account {} and period {} failed: {}", accountId, period, e.getMessage());
+              return Mono.empty();
+            }), concurrency);
+  }
+}
@@ -0,0 +1,110 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsDontMatch;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsMatch;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.repository.LedgerSnapshotRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import com.bank.bootcamp.currentaccounts.service.LedgerSnapshotService;
+import com.mongodb.client.result.DeleteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Traslada los movimientos de un mes cerrado a Transactions_{año}, así Transactions y sus índices solo contienen los
+// meses recientes. Antes de trasladar una cuenta se asegura su cierre del mes (saldo de arrastre) y su saldo materializado:
+// el saldo se sigue calculando sin leer el archivo. Copia y luego borra, por lo que si se interrumpe basta con volver a ejecutarlo
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionArchiveJob {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final TransactionRepository transactionRepository;
+  private final LedgerSnapshotRepository ledgerSnapshotRepository;
+  private final LedgerSnapshotService ledgerSnapshotService;
+  private final AccountBalanceService accountBalanceService;
+  private final Environment env;
+
+  // Después del cierre del ledger (día 1)
+  @Scheduled(cron = "${transactions.archive.cron:0 0 2 2 * *}")
+  public void run() {
+    var hotMonths = Integer.parseInt(Optional.ofNullable(env.getProperty("transactions.archive.hot-months")).orElse("2"));
+    var period = YearMonth.now().minusMonths(hotMonths);
+    var archived = archive(period).block();
+    log.info("Transactions archive for {} finished, {} movement(s) moved to {}", period, archived, transactionRepository.archiveCollection(period.getYear()));
+  }
+
+  public Mono<Long> archive(YearMonth period) {
+    if (!transactionRepository.isArchived(period))
+      return Mono.error(new BankValidationException("Only periods before the recent months can be archived"));
+    var rangeSize = Integer.parseInt(Optional.ofNullable(env.getProperty("transactions.archive.range-size")).orElse("500"));
+    var partitions = Integer.parseInt(Optional.ofNullable(env.getProperty("transactions.archive.partitions")).orElse("4"));
+    var collection = transactionRepository.archiveCollection(period.getYear());
+
+    var accounts = new Query().with(Sort.by("_id"));
+    accounts.fields().include("_id").include("balance");
+    return mongoTemplate.indexOps(collection)
+        .ensureIndex(new Index().on("accountId", Direction.ASC).on("registerDate", Direction.ASC).on("operationNumber", Direction.ASC).named("account_date_operation"))
+        .thenMany(Flux.defer(() -> mongoTemplate.find(accounts, Account.class)))
+        .buffer(rangeSize)
+        .flatMap(range -> archiveRange(range, period, collection), partitions)
+        .reduce(0L, Long::sum);
+  }
+
+  private Mono<Long> archiveRange(List<Account> accounts, YearMonth period, String collection) {
+    var snapshotIds = accounts.stream().map(account -> LedgerSnapshotService.snapshotId(account.getId(), period)).collect(Collectors.toList());
+    return ledgerSnapshotRepository.findAllById(snapshotIds)
+        .map(LedgerSnapshot::getAccountId)
+        .collect(Collectors.toSet())
+        .flatMapMany(closed -> Flux.fromIterable(accounts)
+            .concatMap(account -> carryForward(account, period, closed.contains(account.getId()))
+                .thenReturn(account.getId())
+                // Sin cierre la cuenta se queda en Transactions; las consultas del periodo leen ambos lados
+                .onErrorResume(e -> {
+                  log.warn("Movements of account {} for period {} not archived: {}", account.getId(), period, e.getMessage());
+                  return Mono.empty();
+                })))
+        .collectList()
+        .filter(accountIds -> !accountIds.isEmpty())
+        .flatMap(accountIds -> {
+          var movements = where("accountId").in(accountIds)
+              .and("registerDate").gte(period.atDay(1).atStartOfDay()).lt(period.plusMonths(1).atDay(1).atStartOfDay());
+          // La copia no reemplaza lo ya copiado por una ejecución anterior que no llegó a borrar
+          var copy = Aggregation.newAggregation(Aggregation.match(movements), Aggregation.merge()
+              .intoCollection(collection).on("_id")
+              .whenMatched(WhenDocumentsMatch.keepExistingDocument())
+              .whenNotMatched(WhenDocumentsDontMatch.insertNewDocument())
+              .build());
+          return mongoTemplate.aggregate(copy, mongoTemplate.getCollectionName(Transaction.class), Document.class)
+              .then(Mono.defer(() -> mongoTemplate.remove(new Query(movements), Transaction.class)))
+              .map(DeleteResult::getDeletedCount);
+        })
+        .defaultIfEmpty(0L);
+  }
+
+  private Mono<Void> carryForward(Account account, YearMonth period, boolean closed) {
+    var balance = account.getBalance() == null ? accountBalanceService.initializeBalance(account.getId()).then() : Mono.<Void>empty();
+    return closed ? balance : balance.then(Mono.defer(() -> ledgerSnapshotService.close(account.getId(), period))).then();
+  }
+}
@@ -0,0 +1,33 @@
+package com.bank.bootcamp.currentaccounts.job;
+
+import java.util.Optional;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferDispatchJob {
+
+  private final TransferService transferService;
+  private final Environment env;
+
+  @Scheduled(fixedDelayString = "${transfer.dispatcher.fixed-delay-millis:1000}")
+  public void run() {
+    var processed = dispatch().count().block();
+    if (processed > 0)
+      log.info("Transfer dispatcher processed {} transfer(s)", processed);
+  }
+
+  public Flux<Transfer> dispatch() {
+    var batchSize = Integer.parseInt(Optional.ofNullable(env.getProperty("transfer.dispatcher.batch-size")).orElse("100"));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("transfer.dispatcher.concurrency")).orElse("8"));
+    return transferService.dispatch(batchSize, concurrency);
+  }
+}
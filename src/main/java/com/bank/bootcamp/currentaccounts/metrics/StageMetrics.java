@@ -0,0 +1,51 @@
+package com.bank.bootcamp.currentaccounts.metrics;
+
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+// Timer "bank.stage" por operación y etapa, con histograma para calcular percentiles en Prometheus.
+// El outcome es success, error o cancelled; en los errores se agrega la clase de la excepción.
+@Component
+@RequiredArgsConstructor
+public class StageMetrics {
+
+  public static final String METRIC = "bank.stage";
+
+  private final MeterRegistry meterRegistry;
+
+  public <T> Mono<T> time(String operation, String stage, Mono<T> mono) {
+    return Mono.defer(() -> {
+      var sample = Timer.start(meterRegistry);
+      var error = new Throwable[1];
+      return mono
+          .doOnError(e -> error[0] = e)
+          .doFinally(signal -> stop(sample, operation, stage, signal, error[0]));
+    });
+  }
+
+  public <T> Flux<T> time(String operation, String stage, Flux<T> flux) {
+    return Flux.defer(() -> {
+      var sample = Timer.start(meterRegistry);
+      var error = new Throwable[1];
+      return flux
+          .doOnError(e -> error[0] = e)
+          .doFinally(signal -> stop(sample, operation, stage, signal, error[0]));
+    });
+  }
+
+  private void stop(Timer.Sample sample, String operation, String stage, SignalType signal, Throwable error) {
+    var outcome = signal == SignalType.ON_COMPLETE ? "success" : signal == SignalType.ON_ERROR ? "error" : "cancelled";
+    sample.stop(Timer.builder(METRIC)
+        .tag("operation", operation)
+        .tag("stage", stage)
+        .tag("outcome", outcome)
+        .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+  }
+}
@@ -0,0 +1,11 @@
+package com.bank.bootcamp.currentaccounts.repository;
+
+import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.bank.bootcamp.currentaccounts.entity.IdempotencyRecord;
+import reactor.core.publisher.Mono;
+
+public interface IdempotencyRepository extends ReactiveMongoRepository<IdempotencyRecord, String> {
+
+  Mono<Long> deleteByIdAndCompletedFalseAndLeaseUntilBefore(String id, LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.bank.bootcamp.currentaccounts.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import reactor.core.publisher.Mono;
+
+public interface LedgerSnapshotRepository extends ReactiveMongoRepository<LedgerSnapshot, String> {
+
+  Mono<LedgerSnapshot> findFirstByAccountIdOrderByPeriodDesc(String accountId);
+  // period en formato yyyy-MM, el orden de texto coincide con el cronológico
+  Mono<LedgerSnapshot> findFirstByAccountIdAndPeriodLessThanOrderByPeriodDesc(String accountId, String period);
+
+}
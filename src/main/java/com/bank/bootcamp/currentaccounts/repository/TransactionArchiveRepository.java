@@ -0,0 +1,27 @@
+package com.bank.bootcamp.currentaccounts.repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import org.springframework.data.domain.Pageable;
+import com.bank.bootcamp.currentaccounts.dto.MovementTotals;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Movimientos de periodos cerrados, trasladados por TransactionArchiveJob a una colección por año (Transactions_{año}).
+// Transactions solo conserva los últimos meses (transactions.archive.hot-months)
+public interface TransactionArchiveRepository {
+
+  // El periodo pudo ser archivado: sus movimientos se buscan en el archivo además de en Transactions
+  boolean isArchived(YearMonth period);
+
+  String archiveCollection(int year);
+
+  // Mismo criterio y orden que TransactionRepository.findPageAfter
+  Flux<Transaction> findArchivedPageAfter(String accountId, LocalDateTime afterDate, Integer afterOperationNumber, LocalDateTime to, Pageable pageable);
+
+  // Movimientos en [from, to) ordenados por registro
+  Flux<Transaction> findArchivedMovements(String accountId, LocalDateTime from, LocalDateTime to);
+
+  Mono<MovementTotals> getArchivedTotals(String accountId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,84 @@
+package com.bank.bootcamp.currentaccounts.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import com.bank.bootcamp.currentaccounts.dto.MovementTotals;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class TransactionArchiveRepositoryImpl implements TransactionArchiveRepository {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final Environment env;
+
+  @Override
+  public boolean isArchived(YearMonth period) {
+    var hotMonths = Integer.parseInt(Optional.ofNullable(env.getProperty("transactions.archive.hot-months")).orElse("2"));
+    return !period.isAfter(YearMonth.now().minusMonths(hotMonths));
+  }
+
+  @Override
+  public String archiveCollection(int year) {
+    return mongoTemplate.getCollectionName(Transaction.class) + "_" + year;
+  }
+
+  @Override
+  public Flux<Transaction> findArchivedPageAfter(String accountId, LocalDateTime afterDate, Integer afterOperationNumber, LocalDateTime to, Pageable pageable) {
+    var criteria = where("accountId").is(accountId).andOperator(
+        where("registerDate").lt(to),
+        new Criteria().orOperator(
+            where("registerDate").gt(afterDate),
+            where("registerDate").is(afterDate).and("operationNumber").gt(afterOperationNumber)));
+    var movements = find(criteria, afterDate, to, pageable.isPaged() ? pageable.getPageSize() : 0);
+    return pageable.isPaged() ? movements.take(pageable.getPageSize()) : movements;
+  }
+
+  @Override
+  public Flux<Transaction> findArchivedMovements(String accountId, LocalDateTime from, LocalDateTime to) {
+    return find(where("accountId").is(accountId).and("registerDate").gte(from).lt(to), from, to, 0);
+  }
+
+  @Override
+  public Mono<MovementTotals> getArchivedTotals(String accountId, LocalDateTime from, LocalDateTime to) {
+    var aggregation = Aggregation.newAggregation(
+        Aggregation.match(where("accountId").is(accountId).and("registerDate").gte(from).lt(to)),
+        Aggregation.group().sum("amount").as("total").count().as("count"));
+    return years(from, to)
+        .concatMap(year -> mongoTemplate.aggregate(aggregation, archiveCollection(year), MovementTotals.class))
+        .reduce(new MovementTotals(), (sum, totals) -> {
+          sum.setTotal(sum.getTotal() + totals.getTotal());
+          sum.setCount(sum.getCount() + totals.getCount());
+          return sum;
+        });
+  }
+
+  // Un año por colección, recorridos en orden: el resultado conserva el orden (registerDate, operationNumber)
+  private Flux<Transaction> find(Criteria criteria, LocalDateTime from, LocalDateTime to, int limit) {
+    return years(from, to).concatMap(year -> {
+      var query = new Query(criteria).with(Sort.by("registerDate", "operationNumber")).limit(limit);
+      return mongoTemplate.find(query, Transaction.class, archiveCollection(year));
+    });
+  }
+
+  // Solo los años con algún periodo archivado dentro del rango; si el rango está en los meses recientes no se consulta nada
+  private Flux<Integer> years(LocalDateTime from, LocalDateTime to) {
+    if (!to.isAfter(from) || !isArchived(YearMonth.from(from)))
+      return Flux.empty();
+    var last = YearMonth.from(to.minusNanos(1));
+    while (!isArchived(last))
+      last = last.minusMonths(1);
+    return Flux.range(from.getYear(), last.getYear() - from.getYear() + 1);
+  }
+}
@@ -1,21 +1,55 @@
 package com.bank.bootcamp.currentaccounts.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.bank.bootcamp.currentaccounts.dto.MovementTotals;
 import com.bank.bootcamp.currentaccounts.entity.Transaction;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface TransactionRepository extends ReactiveMongoRepository<Transaction, String> {
+public interface TransactionRepository extends ReactiveMongoRepository<Transaction, String>, TransactionArchiveRepository {
 
   Flux<Transaction> findByAccountId(String accountId);
   Flux<Transaction> findByAccountIdAndRegisterDateBetween(String accountId, LocalDateTime from, LocalDateTime to);
+  // Igual que findByAccountIdAndRegisterDateBetween pero incluye el inicio y ordena por registro; usado por los estados de cuenta
+  @Query(value = "{ accountId: ?0, registerDate: { $gte: ?1, $lt: ?2 } }", sort = "{ registerDate: 1, operationNumber: 1 }")
+  Flux<Transaction> findStatementMovements(String accountId, LocalDateTime from, LocalDateTime to);
+  Mono<Long> countByAccountIdAndRegisterDateBetween(String accountId, LocalDateTime from, LocalDateTime to);
+  Flux<Transaction> findByTransferId(String transferId);
+  Mono<Transaction> findByReference(String reference);
+  Flux<Transaction> findByReferenceIn(Collection<String> references);
+  
+  // Paginación por clave (registerDate, operationNumber), resuelta con el índice account_date_operation
+  @Query(value = "{ accountId: ?0, $and: [ { registerDate: { $lt: ?3 } }, { $or: [ { registerDate: { $gt: ?1 } }, { registerDate: ?1, operationNumber: { $gt: ?2 } } ] } ] }",
+      sort = "{ registerDate: 1, operationNumber: 1 }")
+  Flux<Transaction> findPageAfter(String accountId, LocalDateTime afterDate, Integer afterOperationNumber, LocalDateTime to, Pageable pageable);
   
   @Aggregation(pipeline = {
       "{ $match: { accountId: ?0 }}",
       "{ $group: { _id: '', total: {$sum: $amount }}}"
   })
-  public Mono<Double> getBalanceByAccountId(String accountId);
+  public Mono<Long> getBalanceByAccountId(String accountId);
+  
+  @Aggregation(pipeline = {
+      "{ $match: { accountId: ?0, registerDate: { $gte: ?1, $lt: ?2 } }}",
+      "{ $group: { _id: '', total: {$sum: $amount }, count: {$sum: 1 }}}"
+  })
+  public Mono<MovementTotals> getTotalsByAccountIdAndRegisterDateBetween(String accountId, LocalDateTime from, LocalDateTime to);
+  
+  @Aggregation(pipeline = {
+      "{ $match: { accountId: ?0, registerDate: { $lt: ?1 } }}",
+      "{ $group: { _id: '', total: {$sum: $amount }, count: {$sum: 1 }}}"
+  })
+  public Mono<MovementTotals> getTotalsByAccountIdAndRegisterDateBefore(String accountId, LocalDateTime to);
+  
+  @Aggregation(pipeline = {
+      "{ $match: { accountId: ?0, registerDate: { $gte: ?1 } }}",
+      "{ $group: { _id: '', total: {$sum: $amount }, count: {$sum: 1 }}}"
+  })
+  public Mono<MovementTotals> getTotalsByAccountIdAndRegisterDateFrom(String accountId, LocalDateTime from);
   
 }
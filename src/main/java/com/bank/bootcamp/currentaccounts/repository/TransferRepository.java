@@ -0,0 +1,8 @@
+package com.bank.bootcamp.currentaccounts.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+
+public interface TransferRepository extends ReactiveMongoRepository<Transfer, String> {
+
+}
@@ -0,0 +1,119 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import java.time.Duration;
+import java.util.Objects;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDrift;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class AccountBalanceService {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final LedgerSnapshotService ledgerSnapshotService;
+
+  public Mono<Long> getBalance(Account account) {
+    if (account.getBalance() != null)
+      return Mono.just(account.getBalance());
+    // Cuentas creadas antes del saldo materializado: se inicializa una sola vez desde el ledger
+    return initializeBalance(account.getId());
+  }
+
+  public Mono<Long> initializeBalance(String accountId) {
+    return getLedgerBalance(accountId)
+        .flatMap(ledgerBalance -> mongoTemplate.findAndModify(
+            query(where("_id").is(accountId).and("balance").is(null)),
+            new Update().set("balance", ledgerBalance),
+            options().returnNew(true),
+            Account.class)
+            // Si otra instancia lo inicializó primero, se respeta su valor
+            .switchIfEmpty(Mono.defer(() -> mongoTemplate.findById(accountId, Account.class)))
+            .map(Account::getBalance));
+  }
+
+  public Mono<Account> applyMovement(String accountId, long amount) {
+    return mongoTemplate.findAndModify(
+        query(where("_id").is(accountId)),
+        new Update().inc("balance", amount).inc("version", 1),
+        options().returnNew(true),
+        Account.class);
+  }
+
+  // Valida y aplica el cargo en una sola operación atómica sobre la cuenta: si el saldo no alcanza
+  // no se modifica nada y se devuelve vacío. Así varias instancias pueden escribir sobre la misma
+  // cuenta sin sobregirarla y sin bloquear hilos. Tampoco aplica sobre cuentas sin saldo inicializado.
+  public Mono<Account> reserve(String accountId, long amount) {
+    var criteria = amount >= 0
+        ? where("_id").is(accountId).and("balance").ne(null)
+        : where("_id").is(accountId).and("balance").gte(-amount);
+    return mongoTemplate.findAndModify(
+        query(criteria),
+        new Update().inc("balance", amount).inc("version", 1),
+        options().returnNew(true),
+        Account.class);
+  }
+
+  // Reserva de varios movimientos de una cuenta aplicados en orden: suma total solo si el saldo actual cubre
+  // minimumBalance, el saldo inicial que necesita la secuencia para que ningún movimiento intermedio la sobregire
+  public Mono<Account> reserve(String accountId, long total, long minimumBalance) {
+    return mongoTemplate.findAndModify(
+        query(where("_id").is(accountId).and("balance").gte(minimumBalance)),
+        new Update().inc("balance", total).inc("version", 1),
+        options().returnNew(true),
+        Account.class);
+  }
+
+  public Mono<Long> getLedgerBalance(String accountId) {
+    return ledgerSnapshotService.getBalance(accountId);
+  }
+
+  public Mono<BalanceDrift> observeDrift(String accountId) {
+    return mongoTemplate.findById(accountId, Account.class)
+        .flatMap(account -> getLedgerBalance(accountId).map(ledger -> {
+          var drift = new BalanceDrift();
+          drift.setAccountId(accountId);
+          drift.setSnapshot(account.getBalance());
+          drift.setVersion(account.getVersion());
+          drift.setLedger(ledger);
+          return drift;
+        }));
+  }
+
+  public Mono<BalanceDrift> reconcile(String accountId, long tolerance, boolean autoCorrect, Duration settleTime) {
+    return observeDrift(accountId)
+        .flatMap(first -> {
+          if (first.getSnapshot() == null) {
+            return initializeBalance(accountId).thenReturn(first);
+          }
+          if (Math.abs(first.getDrift()) <= tolerance || !autoCorrect) {
+            return Mono.just(first);
+          }
+          // Un movimiento en vuelo (saldo ya reservado pero aún sin insertar) se ve como diferencia temporal,
+          // solo se corrige si la diferencia se mantiene igual tras el tiempo de espera
+          return Mono.delay(settleTime)
+              .then(observeDrift(accountId))
+              .flatMap(second -> {
+                if (!Objects.equals(second.getVersion(), first.getVersion()) || !second.getLedger().equals(first.getLedger())) {
+                  return Mono.just(second);
+                }
+                return mongoTemplate.findAndModify(
+                    query(where("_id").is(accountId).and("version").is(second.getVersion())),
+                    new Update().set("balance", second.getLedger()).inc("version", 1),
+                    Account.class)
+                    .map(previous -> {
+                      second.setCorrected(Boolean.TRUE);
+                      return second;
+                    })
+                    .defaultIfEmpty(second);
+              });
+        });
+  }
+}
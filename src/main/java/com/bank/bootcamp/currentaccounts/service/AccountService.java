@@ -1,55 +1,66 @@
 package com.bank.bootcamp.currentaccounts.service;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.Optional;
 import java.util.function.Predicate;
-import org.modelmapper.ModelMapper;
 import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
 import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
 import com.bank.bootcamp.currentaccounts.dto.CreateAccountDTO;
 import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
-import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
-import com.bank.bootcamp.currentaccounts.dto.TransferOperation;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.dto.MovementCursor;
 import com.bank.bootcamp.currentaccounts.entity.Account;
 import com.bank.bootcamp.currentaccounts.entity.CustomerType;
 import com.bank.bootcamp.currentaccounts.entity.Transaction;
 import com.bank.bootcamp.currentaccounts.entity.TransactionSequences;
 import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
 import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
 import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
-import com.bank.bootcamp.currentaccounts.webclient.AccountWebClient;
 import com.bank.bootcamp.currentaccounts.webclient.CreditWebClient;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AccountService {
   
+  public static final long COMISSION_BASIS_POINTS = 50; // TODO: Este valor está en duro, no especificaron el monto, por ahora es 0.5 %
+  
   private final AccountRepository accountRepository;
   private final TransactionRepository transactionRepository;
   private final NextSequenceService nextSequenceService;
   private final Environment env;
   private final CreditWebClient creditWebClient;
-  private final AccountWebClient accountWebClient;
-  
-  private ModelMapper mapper = new ModelMapper();
+  private final AccountBalanceService accountBalanceService;
+  private final MovementCounterService movementCounterService;
+  private final AccountCache accountCache;
+  private final LedgerSnapshotService ledgerSnapshotService;
+  private final StageMetrics stageMetrics;
 
   public Mono<Account> createAccount(CreateAccountDTO dto) {
-    var minimumOpeningAmount = Double.parseDouble(Optional.ofNullable(env.getProperty("account.minimum-opening-amount")).orElse("0"));
-    return Mono.just(dto)
+    var minimumOpeningAmount = new BigDecimal(Optional.ofNullable(env.getProperty("account.minimum-opening-amount")).orElse("0"));
+    return stageMetrics.time("createAccount", "total", Mono.just(dto)
         .then(check(dto, acc -> Optional.of(acc).isEmpty(), "Account has not data"))
         .then(check(dto, acc -> ObjectUtils.isEmpty(acc.getCustomerType()), "Customer Type is required"))
         .then(check(dto, acc -> ObjectUtils.isEmpty(acc.getCustomerId()), "Customer ID is required"))
         .then(check(dto, acc -> ObjectUtils.isEmpty(acc.getMaintenanceFee()), "Maintenance fee is required"))
-        .then(check(dto, acc -> acc.getMaintenanceFee() <= 0, "Maintenance fee must be greater than or equal to zero"))
+        .then(check(dto, acc -> acc.getMaintenanceFee().signum() <= 0, "Maintenance fee must be greater than or equal to zero"))
+        .then(check(dto, acc -> !Money.isValid(acc.getMaintenanceFee()), "Maintenance fee must have at most 2 decimals"))
         .then(check(dto, acc -> ObjectUtils.isEmpty(acc.getOpeningAmount()), "Opening amount is required"))
-        .then(check(dto, acc -> acc.getOpeningAmount() < minimumOpeningAmount, String.format("The minimum opening amount is %s", minimumOpeningAmount)))
+        .then(check(dto, acc -> !Money.isValid(acc.getOpeningAmount()), "Opening amount must have at most 2 decimals"))
+        .then(check(dto, acc -> acc.getOpeningAmount().compareTo(minimumOpeningAmount) < 0, String.format("The minimum opening amount is %s", minimumOpeningAmount)))
         .then(accountRepository.findByCustomerIdAndCustomerType(dto.getCustomerId(), dto.getCustomerType()).count()
             .<Long>handle((record, sink) -> {
               if (record > 0 && dto.getCustomerType() == CustomerType.PERSONAL) {
@@ -79,23 +90,27 @@ public class AccountService {
                     });
               })
               .flatMap(register -> {
-                return accountRepository.save(register.toAccount()).flatMap(savedAccount -> {
+                var account = register.toAccount();
+                account.setBalance(Money.toMinor(register.getOpeningAmount()));
+                return accountRepository.save(account).flatMap(savedAccount -> {
                   return nextSequenceService.getNextSequence(TransactionSequences.class.getSimpleName())
                       .map(nextSeq -> {
                         var openingTransaction = new Transaction();
                         openingTransaction.setAccountId(savedAccount.getId());
                         openingTransaction.setAgent("-");
-                        openingTransaction.setAmount(dto.getOpeningAmount());
+                        openingTransaction.setAmount(Money.toMinor(dto.getOpeningAmount()));
                         openingTransaction.setDescription("Opening account");
                         openingTransaction.setOperationNumber(nextSeq);
                         openingTransaction.setRegisterDate(LocalDateTime.now());
                         return openingTransaction;
                       }).flatMap(tx -> {
-                        return transactionRepository.save(tx).map(tt -> savedAccount);
+                        return transactionRepository.save(tx)
+                            .flatMap(tt -> movementCounterService.increment(savedAccount.getId(), YearMonth.from(tx.getRegisterDate()), 1))
+                            .map(count -> savedAccount);
                       });
                 });
               });
-        });
+        }));
   }
   
   private <T> Mono<Void> check(T customer, Predicate<T> predicate, String messageForException) {
@@ -109,117 +124,137 @@ public class AccountService {
     });
   }
   
-  private Mono<Transaction> persistTransaction(CreateTransactionDTO createTransactionDTO) {
-    return nextSequenceService.getNextSequence(TransactionSequences.class.getSimpleName()).<Transaction>flatMap(nextSeq -> {
-      var transaction = mapper.map(createTransactionDTO, Transaction.class);
+  private Mono<Transaction> persistTransaction(CreateTransactionDTO createTransactionDTO, String transferId, String feePeriod) {
+    return stageMetrics.time("createTransaction", "sequence", nextSequenceService.getNextSequence(TransactionSequences.class.getSimpleName())).<Transaction>flatMap(nextSeq -> {
+      var transaction = createTransactionDTO.toTransaction();
+      transaction.setTransferId(transferId);
+      transaction.setFeePeriod(feePeriod);
       transaction.setOperationNumber(nextSeq);
       transaction.setRegisterDate(LocalDateTime.now());
-      return transactionRepository.save(transaction);
+      return stageMetrics.time("createTransaction", "save", transactionRepository.save(transaction))
+          // El movimiento ya está guardado: si falla el contador no se devuelve la reserva, solo se registra
+          .flatMap(saved -> stageMetrics.time("createTransaction", "monthlyCountIncrement",
+              movementCounterService.increment(transaction.getAccountId(), YearMonth.from(transaction.getRegisterDate()), 1))
+              .doOnError(e -> log.warn("Could not increment movement counter of account {}: {}", transaction.getAccountId(), e.getMessage()))
+              .onErrorResume(e -> Mono.empty())
+              .thenReturn(saved));
     });
   }
 
   public Mono<Transaction> createTransaction(CreateTransactionDTO createTransactionDTO) {
+    return createTransaction(createTransactionDTO, null, true);
+  }
+
+  // Usado por TransferService: los movimientos quedan asociados a la transferencia y la reversión no cobra comisión
+  Mono<Transaction> createTransaction(CreateTransactionDTO createTransactionDTO, String transferId, boolean comissionable) {
+    return createTransaction(createTransactionDTO, transferId, comissionable, null);
+  }
+
+  // Con feePeriod el movimiento se inserta ya marcado como la cuota del periodo, en una sola escritura
+  Mono<Transaction> createTransaction(CreateTransactionDTO createTransactionDTO, String transferId, boolean comissionable, String feePeriod) {
     
     var maxTransactionsWithFreeComission = Integer.parseInt(Optional.ofNullable(env.getProperty("account.comission-free-maximum-transactions")).orElse("99"));
     
-    return Mono.just(createTransactionDTO)
-        .then(check(createTransactionDTO, dto -> Optional.of(dto).isEmpty(), "No data for create transaction"))
+    var validation = check(createTransactionDTO, dto -> Optional.of(dto).isEmpty(), "No data for create transaction")
         .then(check(createTransactionDTO, dto -> ObjectUtils.isEmpty(dto.getAccountId()), "Account ID is required"))
         .then(check(createTransactionDTO, dto -> ObjectUtils.isEmpty(dto.getAgent()), "Agent is required"))
         .then(check(createTransactionDTO, dto -> ObjectUtils.isEmpty(dto.getAmount()), "Amount is required"))
-        .then(check(createTransactionDTO, dto -> ObjectUtils.isEmpty(dto.getDescription()), "Description is required"))
-        .then(accountRepository.findById(createTransactionDTO.getAccountId()).switchIfEmpty(Mono.error(new BankValidationException("Account not found"))))
-        .flatMap(acc -> {
-          return transactionRepository.getBalanceByAccountId(createTransactionDTO.getAccountId()).switchIfEmpty(Mono.just(0d));
-        })
-        .flatMap(balance -> {
-          if (balance + createTransactionDTO.getAmount() < 0) {
-            return Mono.error(new BankValidationException("Insuficient balance"));
-          } else {
-            // Agregamos la validación de la comisión, y si esta puede aplicarse
-            var comissionPercentage = 0.005; // TODO: Este valor está en duro, no especificaron el monto, por ahora es 0.5 %
-            var newAmountWithComissionApply = (Math.abs(createTransactionDTO.getAmount()) * (1d + comissionPercentage)) * -1d;
-            
-            var yearMonth = YearMonth.from(LocalDateTime.now());
-            var currentMonthStart = yearMonth.atDay(1).atStartOfDay();
-            var currentMonthEnd = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-            
-            return transactionRepository.findByAccountIdAndRegisterDateBetween(createTransactionDTO.getAccountId(), currentMonthStart, currentMonthEnd)
-                .count()
-                .<Boolean>handle((transactionCount, sink) -> {                  
-                  if (transactionCount >= maxTransactionsWithFreeComission) {
-                    if (balance + newAmountWithComissionApply < 0) {
-                      sink.error(new BankValidationException("Insuficient balance, can not apply the comission"));
-                    } else {
-                      sink.next(Boolean.TRUE);
+        .then(check(createTransactionDTO, dto -> !Money.isValid(dto.getAmount()), "Amount must have at most 2 decimals"))
+        .then(check(createTransactionDTO, dto -> ObjectUtils.isEmpty(dto.getDescription()), "Description is required"));
+    
+    return stageMetrics.time("createTransaction", "total", stageMetrics.time("createTransaction", "validation", validation)
+        .then(stageMetrics.time("createTransaction", "findById", Mono.defer(() -> accountCache.findById(createTransactionDTO.getAccountId())))
+            .switchIfEmpty(Mono.error(new BankValidationException("Account not found"))))
+        .flatMap(acc -> stageMetrics.time("createTransaction", "monthlyCount", movementCounterService.getCount(createTransactionDTO.getAccountId(), YearMonth.from(LocalDateTime.now()))))
+        .flatMap(transactionCount -> {
+          // Agregamos la validación de la comisión, y si esta puede aplicarse
+          var amount = Money.toMinor(createTransactionDTO.getAmount());
+          var newAmountWithComissionApply = comissionFor(amount);
+          var persistComission = comissionable && transactionCount >= maxTransactionsWithFreeComission;
+          var accountId = createTransactionDTO.getAccountId();
+          var totalAmount = amount + (persistComission ? newAmountWithComissionApply : 0L);
+          
+          // La validación del saldo la hace la reserva atómica, así no se lee la cuenta antes de escribir
+          return stageMetrics.time("createTransaction", "reserve", reserve(accountId, amount, totalAmount))
+              .flatMap(reserved -> persistTransaction(createTransactionDTO, transferId, feePeriod)
+                  .onErrorResume(e -> release(accountId, totalAmount, e))
+                  .flatMap(tx -> {
+                    var monoTx = Mono.just(tx);
+                    if (persistComission) {
+                      var comissionTxDTO = new CreateTransactionDTO();
+                      comissionTxDTO.setAccountId(tx.getAccountId());
+                      comissionTxDTO.setAgent("-");
+                      comissionTxDTO.setAmount(Money.toDecimal(newAmountWithComissionApply));
+                      comissionTxDTO.setCreateByComission(Boolean.TRUE);
+                      comissionTxDTO.setDescription("Maintenance comission by limit transactions");
+                      monoTx = persistTransaction(comissionTxDTO, transferId, null).map(ct -> tx)
+                          .onErrorResume(e -> release(accountId, newAmountWithComissionApply, e));
                     }
-                  } else {
-                    sink.next(Boolean.FALSE);
-                  }
-                })
-                .flatMap(persistComission -> {
-                  return persistTransaction(createTransactionDTO)
-                      .flatMap(tx -> {
-                        var monoTx = Mono.just(tx);
-                        if (persistComission) {
-                          var comissionTxDTO = new CreateTransactionDTO();
-                          comissionTxDTO.setAccountId(tx.getAccountId());
-                          comissionTxDTO.setAgent("-");
-                          comissionTxDTO.setAmount(newAmountWithComissionApply);
-                          comissionTxDTO.setCreateByComission(Boolean.TRUE);
-                          comissionTxDTO.setDescription("Maintenance comission by limit transactions");
-                          monoTx = persistTransaction(comissionTxDTO).map(ct -> tx);
-                        }
-                        return monoTx;
-                      })
-                      ;
-                });
-            }
-          });
+                    return monoTx;
+                  }));
+        }));
+  }
+
+  private Mono<Account> reserve(String accountId, long amount, long totalAmount) {
+    return accountBalanceService.reserve(accountId, totalAmount)
+        // Cuenta anterior al saldo materializado: se inicializa desde el ledger y se reintenta una vez
+        .switchIfEmpty(Mono.defer(() -> accountRepository.findById(accountId)
+            .filter(account -> account.getBalance() == null)
+            .flatMap(account -> accountBalanceService.getBalance(account).then(accountBalanceService.reserve(accountId, totalAmount)))))
+        .switchIfEmpty(Mono.defer(() -> accountRepository.findById(accountId)
+            .switchIfEmpty(Mono.error(new BankValidationException("Account not found")))
+            .flatMap(account -> accountBalanceService.getBalance(account))
+            .flatMap(balance -> Mono.error(new BankValidationException(balance + amount < 0
+                ? "Insuficient balance"
+                : "Insuficient balance, can not apply the comission")))));
+  }
+
+  // Importe más el porcentaje, en céntimos y redondeado al céntimo
+  public static long comissionFor(long amount) {
+    return -Money.percentage(Math.abs(amount), 10_000 + COMISSION_BASIS_POINTS);
+  }
+
+  // Devuelve al saldo la parte reservada que no llegó a registrarse en el ledger. Solo aplica cuando falla la
+  // secuencia o el guardado: después de guardar el movimiento ningún error devuelve la reserva
+  private <T> Mono<T> release(String accountId, long reservedAmount, Throwable cause) {
+    return accountBalanceService.applyMovement(accountId, -reservedAmount).then(Mono.error(cause));
   }
 
   public Mono<BalanceDTO> getBalanceByAccountId(String accountId) {
-    return Mono.just(accountId)
+    return stageMetrics.time("getBalance", "total", Mono.just(accountId)
     .switchIfEmpty(Mono.error(new BankValidationException("Account Id is required")))
-    .flatMap(accId -> accountRepository.findById(accId))
+    .flatMap(accId -> stageMetrics.time("getBalance", "findById", accountRepository.findById(accId)))
     .switchIfEmpty(Mono.error(new BankValidationException("Account not found")))
     .flatMap(account -> {
-      var x = transactionRepository.getBalanceByAccountId(account.getId()).switchIfEmpty(Mono.just(0d))
-          .flatMap(balance -> {
-            var yearMonth = YearMonth.from(LocalDateTime.now());
-            var currentMonthStart = yearMonth.atDay(1).atStartOfDay();
-            var currentMonthEnd = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-            
-            return transactionRepository.findByAccountIdAndRegisterDateBetween(accountId, currentMonthStart, currentMonthEnd)
-                .count().switchIfEmpty(Mono.just(0L))
-                .map(qty -> {
-                  var balanceDTO = new BalanceDTO();
-                  balanceDTO.setAccountId(account.getId());
-                  balanceDTO.setMaintenanceFee(account.getMaintenanceFee());
-                  //balanceDTO.setAccountNumber(account.getAccountNumber());
-                  balanceDTO.setType("Current Account");
-                  balanceDTO.setAmount(balance);
-                  return balanceDTO;
-                });
-          });
-      return x;
-    });
+      return stageMetrics.time("getBalance", "balance", accountBalanceService.getBalance(account))
+          .map(balance -> BalanceDTO.of(account, balance));
+    }));
+  }
+
+  public Mono<BalanceDTO> getBalanceByAccountIdAsOf(String accountId, LocalDate date) {
+    return check(date, d -> Optional.ofNullable(d).isEmpty(), "Date is required")
+        .then(accountRepository.findById(accountId))
+        .switchIfEmpty(Mono.error(new BankValidationException("Account not found")))
+        .flatMap(account -> ledgerSnapshotService.getBalanceAsOf(accountId, date)
+            .map(balance -> BalanceDTO.of(account, balance)));
   }
 
+  // Los saldos salen de las cuentas ya leídas. Las cuentas sin saldo materializado se inicializan una sola vez desde
+  // el ledger, igual que en la consulta por cuenta, así se incluyen los periodos trasladados a Transactions_{año}.
+  // El orden es el de las cuentas.
   public Flux<BalanceDTO> getBalancesByCustomerId(String customerId, CustomerType customerType) {
-    return Mono.just(customerId)
-    .switchIfEmpty(Mono.error(new BankValidationException("Customer ID is required")))
-    .flatMapMany(custId -> accountRepository.findByCustomerIdAndCustomerType(custId, customerType)
-        .flatMap(account -> getBalanceByAccountId(account.getId())));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("account.balances-by-customer.concurrency")).orElse("8"));
+    return stageMetrics.time("getBalancesByCustomer", "total", check(customerId, custId -> ObjectUtils.isEmpty(custId), "Customer ID is required")
+        .thenMany(Flux.defer(() -> accountRepository.findByCustomerIdAndCustomerType(customerId, customerType)))
+        .flatMapSequential(account -> accountBalanceService.getBalance(account).map(balance -> BalanceDTO.of(account, balance)), concurrency));
   }
 
+
   public Flux<Account> getAccountsByCustomer(String customerId, CustomerType customerType) {
-    return Mono.just(customerId)
-        .switchIfEmpty(Mono.error(new BankValidationException("Customer ID is required")))
+    return check(customerId, custId -> ObjectUtils.isEmpty(custId), "Customer ID is required")
         .then(check(customerType, ct -> ObjectUtils.isEmpty(ct), "Customer Type is required"))
-        .flatMapMany(custId -> {
-          return accountRepository.findByCustomerIdAndCustomerType(customerId, customerType);
-        });
+        // then() deja el flujo vacío: la consulta va en thenMany para que se ejecute
+        .thenMany(Flux.defer(() -> accountRepository.findByCustomerIdAndCustomerType(customerId, customerType)));
   }
 
   public Flux<Transaction> getTransactionsByAccountIdAndPeriod(String accountId, LocalDate period) {
@@ -234,48 +269,37 @@ public class AccountService {
           var yearMonth = YearMonth.from(period);
           var currentMonthStart = yearMonth.atDay(1).atStartOfDay();
           var currentMonthEnd = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-          return transactionRepository.findByAccountIdAndRegisterDateBetween(accountId, currentMonthStart, currentMonthEnd);
+          var movements = transactionRepository.findByAccountIdAndRegisterDateBetween(accountId, currentMonthStart, currentMonthEnd);
+          if (!transactionRepository.isArchived(yearMonth))
+            return movements;
+          return transactionRepository.findArchivedMovements(accountId, currentMonthStart, yearMonth.plusMonths(1).atDay(1).atStartOfDay())
+              .filter(tx -> tx.getRegisterDate().isAfter(currentMonthStart) && tx.getRegisterDate().isBefore(currentMonthEnd))
+              .concatWith(movements);
         });
   }
 
-  public Mono<Integer> transfer(TransferDTO transferDTO) {
-    var transferOperation = new TransferOperation();
-    return Mono.just(transferDTO)
-        .switchIfEmpty(Mono.error(new BankValidationException("Transfer has not data")))
-        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto), "Transfer has not data"))
-        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getAmount()), "Transfer amount is required"))
-        .then(check(transferDTO, dto -> dto.getAmount() < 0, "Transfer amount must be greater than zero"))
-        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getSourceAccountId()), "Transfer source account ID is required"))
-        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getTargetAccountType()), "Transfer account type is required"))
-        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getTargetAccountId()), "Transfer account ID is required"))
-        .then(accountRepository.findById(transferDTO.getSourceAccountId()).switchIfEmpty(Mono.error(new BankValidationException("Source account not found"))))
-        .flatMap(sourceAccount -> {
-          var transactionDTO = new CreateTransactionDTO();
-          transactionDTO.setAccountId(transferDTO.getSourceAccountId());
-          transactionDTO.setAgent("-");
-          transactionDTO.setDescription("Transfer sent");
-          transactionDTO.setAmount(transferDTO.getAmount() * -1);
-          
-          return createTransaction(transactionDTO)
-              .map(tx -> {
-                transferOperation.setSourceTransactionId(tx.getId());
-                return tx.getOperationNumber();
-              });
-        })
-        .flatMap(operationNumberTarget -> {
-          
-          var transactionDTO = new CreateTransactionDTO();
-          transactionDTO.setAccountId(transferDTO.getTargetAccountId());
-          transactionDTO.setAgent("-");
-          transactionDTO.setDescription("Transfer incoming " + operationNumberTarget);
-          transactionDTO.setAmount(transferDTO.getAmount());
-          
-          return accountWebClient.createTransaction(transferDTO.getTargetAccountType(), transactionDTO)
-              .onErrorResume(Exception.class, e -> {
-                transactionRepository.deleteById(transferOperation.getSourceTransactionId());
-                return Mono.error(new BankValidationException("The operation could not be completed"));
-              });
-        })
-        ;
+  public Flux<Transaction> getTransactionsByAccountIdAndPeriod(String accountId, LocalDate period, String after, Integer limit) {
+    return check(accountId, accId -> ObjectUtils.isEmpty(accId), "Account Id is required")
+        .then(check(period, p -> Optional.ofNullable(p).isEmpty(), "Period is required"))
+        .then(check(limit, l -> l != null && l <= 0, "Limit must be greater than zero"))
+        .then(Mono.fromCallable(() -> ObjectUtils.isEmpty(after) ? periodStart(period) : MovementCursor.parse(after)))
+        .flatMapMany(cursor -> {
+          var periodEnd = YearMonth.from(period).plusMonths(1).atDay(1).atStartOfDay();
+          var pageable = limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+          var movements = transactionRepository.findPageAfter(accountId, cursor.getRegisterDate(), cursor.getOperationNumber(), periodEnd, pageable);
+          if (!transactionRepository.isArchived(YearMonth.from(period)))
+            return movements;
+          // Periodo archivado: lo trasladado está en el archivo y lo que quedó (cuentas aún sin cierre) en Transactions
+          var merged = Flux.mergeComparing(MovementCursor.ORDER,
+              transactionRepository.findArchivedPageAfter(accountId, cursor.getRegisterDate(), cursor.getOperationNumber(), periodEnd, pageable), movements);
+          return limit == null ? merged : merged.take(limit);
+        });
+  }
+
+  private MovementCursor periodStart(LocalDate period) {
+    var cursor = new MovementCursor();
+    cursor.setRegisterDate(YearMonth.from(period).atDay(1).atStartOfDay());
+    cursor.setOperationNumber(Integer.MIN_VALUE);
+    return cursor;
   }
 }
@@ -0,0 +1,124 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+// Envía el saldo de una cuenta cada vez que cambia. Cada instancia abre un solo change stream sobre Accounts, filtrado en el
+// servidor a los cambios del saldo materializado, y lo reparte en memoria a los suscriptores de cada cuenta.
+// Un suscriptor lento solo recibe el último saldo pendiente.
+@Slf4j
+@Service
+public class BalanceStreamService {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final AccountService accountService;
+  private final AccountCache accountCache;
+  private final Environment env;
+  private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+  private Disposable subscription;
+
+  public BalanceStreamService(ReactiveMongoTemplate mongoTemplate, AccountService accountService, AccountCache accountCache, Environment env, MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.accountService = accountService;
+    this.accountCache = accountCache;
+    this.env = env;
+    meterRegistry.gaugeMapSize("bank.balance.stream.accounts", Tags.empty(), channels);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    var enabled = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("account.balance-stream.enabled")).orElse("true"));
+    if (!enabled)
+      return;
+
+    var filter = Aggregation.newAggregation(Aggregation.match(Criteria.where("updateDescription.updatedFields.balance").exists(true)));
+    subscription = mongoTemplate.changeStream(mongoTemplate.getCollectionName(Account.class),
+        ChangeStreamOptions.builder().filter(filter).build(), Document.class)
+        .doOnNext(this::onChange)
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1))
+            .doBeforeRetry(signal -> log.warn("Balance change stream failed, retrying: {}", signal.failure().getMessage())))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null)
+      subscription.dispose();
+  }
+
+  // Saldo actual y luego cada cambio
+  public Flux<BalanceDTO> subscribe(String accountId) {
+    return accountCache.findById(accountId)
+        .switchIfEmpty(Flux.<Account>error(new BankValidationException("Account not found")).next())
+        .flatMapMany(account -> Flux.using(() -> join(accountId), channel -> {
+          var updated = new AtomicBoolean();
+          var updates = channel.sink.asFlux()
+              .doOnNext(balance -> updated.set(true))
+              .map(balance -> BalanceDTO.of(account, balance));
+          // Se escuchan los cambios antes de leer el saldo actual; si llega un cambio durante la lectura, la lectura ya es vieja
+          var current = accountService.getBalanceByAccountId(accountId).filter(balance -> !updated.get());
+          return Flux.merge(updates, current);
+        }, channel -> leave(accountId)))
+        .onBackpressureLatest();
+  }
+
+  void publish(String accountId, Long balance) {
+    Optional.ofNullable(channels.get(accountId)).ifPresent(channel -> channel.sink.tryEmitNext(balance));
+  }
+
+  private void onChange(ChangeStreamEvent<Document> event) {
+    var raw = event.getRaw();
+    if (raw == null || raw.getDocumentKey() == null || raw.getUpdateDescription() == null)
+      return;
+    var id = raw.getDocumentKey().get("_id");
+    BsonValue balance = raw.getUpdateDescription().getUpdatedFields().get("balance");
+    if (id == null || balance == null || !balance.isNumber())
+      return;
+    publish(id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue(), balance.asNumber().longValue());
+  }
+
+  // El canal se crea con el primer suscriptor de la cuenta y se elimina con el último
+  private Channel join(String accountId) {
+    return channels.compute(accountId, (id, channel) -> {
+      var joined = channel == null ? new Channel() : channel;
+      joined.subscribers++;
+      return joined;
+    });
+  }
+
+  private void leave(String accountId) {
+    channels.computeIfPresent(accountId, (id, channel) -> --channel.subscribers == 0 ? null : channel);
+  }
+
+  private static class Channel {
+    // Sin buffer: cada suscriptor conserva solo el último saldo que no alcanzó a consumir
+    private final Sinks.Many<Long> sink = Sinks.many().multicast().directBestEffort();
+    private int subscribers;
+  }
+}
@@ -0,0 +1,357 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+import com.bank.bootcamp.currentaccounts.dto.BulkTransactionResult;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.TransactionSequences;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkTransactionService {
+
+  private final AccountRepository accountRepository;
+  private final TransactionRepository transactionRepository;
+  private final NextSequenceService nextSequenceService;
+  private final AccountBalanceService accountBalanceService;
+  private final MovementCounterService movementCounterService;
+  private final AccountService accountService;
+  private final Environment env;
+
+  // Con idempotencyKey las líneas sin referencia propia usan idempotencyKey + ":" + posición: al reenviar el mismo
+  // archivo las ya registradas devuelven su número de operación y no se vuelven a aplicar
+  public Flux<BulkTransactionResult> createTransactions(Flux<CreateTransactionDTO> transactions, String idempotencyKey) {
+    var chunkSize = Integer.parseInt(Optional.ofNullable(env.getProperty("account.bulk.chunk-size")).orElse("1000"));
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("account.bulk.concurrency")).orElse("16"));
+    var maxTransactionsWithFreeComission = Integer.parseInt(Optional.ofNullable(env.getProperty("account.comission-free-maximum-transactions")).orElse("99"));
+
+    // Los bloques se procesan uno tras otro: memoria acotada y orden de resultados estable
+    return transactions.index()
+        .doOnNext(item -> {
+          var dto = item.getT2();
+          if (dto != null && ObjectUtils.isEmpty(dto.getReference())) {
+            dto.setReference(ObjectUtils.isEmpty(idempotencyKey) ? null : idempotencyKey + ":" + item.getT1());
+          }
+        })
+        .buffer(chunkSize)
+        .concatMap(chunk -> processChunk(chunk, concurrency, maxTransactionsWithFreeComission, null));
+  }
+
+  // Cobro de la cuota de mantenimiento: no genera comisión y el movimiento queda marcado con el periodo cobrado
+  public Flux<BulkTransactionResult> chargeMaintenanceFees(List<CreateTransactionDTO> fees, YearMonth period, int concurrency) {
+    return Flux.fromIterable(fees)
+        .index()
+        .collectList()
+        .flatMapMany(items -> processChunk(items, concurrency, 0, period));
+  }
+
+  private Flux<BulkTransactionResult> processChunk(List<Tuple2<Long, CreateTransactionDTO>> chunk, int concurrency, int maxTransactionsWithFreeComission, YearMonth feePeriod) {
+    var results = new ArrayList<BulkTransactionResult>();
+    var valid = new ArrayList<Tuple2<Long, CreateTransactionDTO>>();
+    chunk.forEach(item -> {
+      var error = validate(item.getT2());
+      if (error != null) {
+        results.add(BulkTransactionResult.error(item.getT1(), item.getT2() == null ? null : item.getT2().getAccountId(), error));
+      } else {
+        valid.add(item);
+      }
+    });
+
+    return posted(valid)
+        .flatMapMany(posted -> {
+          var byAccount = new LinkedHashMap<String, List<Tuple2<Long, CreateTransactionDTO>>>();
+          valid.forEach(item -> {
+            var existing = item.getT2().getReference() == null ? null : posted.get(item.getT2().getReference());
+            if (existing != null) {
+              results.add(BulkTransactionResult.ok(item.getT1(), existing.getAccountId(), existing.getOperationNumber()));
+            } else {
+              byAccount.computeIfAbsent(item.getT2().getAccountId(), id -> new ArrayList<>()).add(item);
+            }
+          });
+          return Flux.fromIterable(byAccount.entrySet())
+              .flatMap(entry -> plan(entry.getKey(), entry.getValue(), maxTransactionsWithFreeComission, feePeriod), concurrency)
+              .flatMap(batch -> reserve(batch), concurrency)
+              .collectList()
+              .flatMapMany(batches -> write(batches, concurrency))
+              .concatWith(Flux.fromIterable(results));
+        })
+        .collectSortedList(Comparator.comparing(BulkTransactionResult::getIndex))
+        .flatMapIterable(sorted -> sorted);
+  }
+
+  // Líneas cuya referencia ya está en el ledger (envío anterior): se responden con el movimiento existente
+  private Mono<Map<String, Transaction>> posted(List<Tuple2<Long, CreateTransactionDTO>> items) {
+    var references = items.stream()
+        .map(item -> item.getT2().getReference())
+        .filter(reference -> reference != null)
+        .collect(Collectors.toSet());
+    if (references.isEmpty()) {
+      return Mono.just(Map.of());
+    }
+    return transactionRepository.findByReferenceIn(references).collectMap(Transaction::getReference);
+  }
+
+  private String validate(CreateTransactionDTO dto) {
+    if (dto == null)
+      return "No data for create transaction";
+    if (ObjectUtils.isEmpty(dto.getAccountId()))
+      return "Account ID is required";
+    if (ObjectUtils.isEmpty(dto.getAgent()))
+      return "Agent is required";
+    if (ObjectUtils.isEmpty(dto.getAmount()))
+      return "Amount is required";
+    if (!Money.isValid(dto.getAmount()))
+      return "Amount must have at most 2 decimals";
+    if (ObjectUtils.isEmpty(dto.getDescription()))
+      return "Description is required";
+    return null;
+  }
+
+  // Aplica en memoria, en orden, las mismas reglas de saldo y comisión que createTransaction
+  private Mono<AccountBatch> plan(String accountId, List<Tuple2<Long, CreateTransactionDTO>> items, int maxTransactionsWithFreeComission, YearMonth feePeriod) {
+    return accountRepository.findById(accountId)
+        .flatMap(account -> Mono.zip(
+            accountBalanceService.getBalance(account),
+            movementCounterService.getCount(accountId, YearMonth.from(LocalDateTime.now()))))
+        .map(state -> {
+          var batch = new AccountBatch(accountId, feePeriod);
+          // Céntimos en long: el saldo en curso no crea objetos por movimiento
+          long balance = state.getT1();
+          long count = state.getT2();
+          for (var item : items) {
+            var dto = item.getT2();
+            long amount = Money.toMinor(dto.getAmount());
+            long comission = feePeriod == null && count >= maxTransactionsWithFreeComission ? AccountService.comissionFor(amount) : 0L;
+            if (balance + amount < 0) {
+              batch.results.add(BulkTransactionResult.error(item.getT1(), accountId, "Insuficient balance"));
+            } else if (balance + amount + comission < 0) {
+              batch.results.add(BulkTransactionResult.error(item.getT1(), accountId, "Insuficient balance, can not apply the comission"));
+            } else {
+              batch.accepted.add(item);
+              var movement = dto.toTransaction();
+              movement.setFeePeriod(feePeriod == null ? null : feePeriod.toString());
+              batch.movements.add(movement);
+              batch.transactions.add(batch.movements.get(batch.movements.size() - 1));
+              if (comission != 0L) {
+                batch.transactions.add(toTransaction(accountId, "-", "Maintenance comission by limit transactions", comission));
+              }
+              balance += amount + comission;
+              batch.total += amount + comission;
+              batch.minimumBalance = Math.max(batch.minimumBalance, -batch.total);
+              count += comission != 0L ? 2 : 1;
+            }
+          }
+          return batch;
+        })
+        .switchIfEmpty(Mono.fromSupplier(() -> {
+          var batch = new AccountBatch(accountId, feePeriod);
+          items.forEach(item -> batch.results.add(BulkTransactionResult.error(item.getT1(), accountId, "Account not found")));
+          return batch;
+        }));
+  }
+
+  private Mono<AccountBatch> reserve(AccountBatch batch) {
+    if (batch.transactions.isEmpty()) {
+      return Mono.just(batch);
+    }
+    // Se reserva la secuencia entera, pero solo si el saldo actual cubre cada movimiento en su orden
+    return accountBalanceService.reserve(batch.accountId, batch.total, batch.minimumBalance)
+        .map(account -> {
+          batch.reserved = true;
+          return batch;
+        })
+        // Otra escritura concurrente dejó el saldo por debajo de lo planificado: esta cuenta se procesa movimiento por movimiento
+        .defaultIfEmpty(batch);
+  }
+
+  private Flux<BulkTransactionResult> write(List<AccountBatch> batches, int concurrency) {
+    var reserved = new ArrayList<AccountBatch>();
+    var fallback = new ArrayList<AccountBatch>();
+    var results = new ArrayList<BulkTransactionResult>();
+    batches.forEach(batch -> {
+      results.addAll(batch.results);
+      if (batch.reserved) {
+        reserved.add(batch);
+      } else if (!batch.accepted.isEmpty()) {
+        fallback.add(batch);
+      }
+    });
+
+    var documents = new ArrayList<Transaction>();
+    reserved.forEach(batch -> documents.addAll(batch.transactions));
+
+    var bulkWrite = documents.isEmpty()
+        ? Flux.<BulkTransactionResult>empty()
+        : nextSequenceService.getNextSequenceBlock(TransactionSequences.class.getSimpleName(), documents.size())
+            .flatMap(first -> {
+              var registerDate = LocalDateTime.now();
+              for (int i = 0; i < documents.size(); i++) {
+                documents.get(i).setOperationNumber(first + i);
+                documents.get(i).setRegisterDate(registerDate);
+              }
+              return insert(documents, new InsertOutcome());
+            })
+            .onErrorResume(e -> {
+              log.warn("Could not reserve operation numbers for {} document(s): {}", documents.size(), e.getMessage());
+              return Mono.just(new InsertOutcome());
+            })
+            .flatMapMany(outcome -> Flux.fromIterable(reserved).flatMapSequential(batch -> settle(batch, outcome), concurrency));
+
+    var oneByOne = Flux.fromIterable(fallback)
+        .flatMap(batch -> oneByOne(batch, batch.accepted), concurrency);
+
+    return Flux.fromIterable(results).concatWith(bulkWrite).concatWith(oneByOne);
+  }
+
+  // La inserción es ordenada y se detiene en el primer error: lo anterior quedó escrito, el documento fallido y
+  // los siguientes de su cuenta se reintentan uno a uno, y los de las demás cuentas se vuelven a insertar. Así lo
+  // escrito de cada cuenta es siempre un prefijo de su secuencia y ningún movimiento queda aplicado sin los anteriores.
+  // Con cualquier otro fallo no se sabe qué llegó a escribirse: no se reintenta para no duplicar
+  private Mono<InsertOutcome> insert(List<Transaction> documents, InsertOutcome outcome) {
+    if (documents.isEmpty()) {
+      return Mono.just(outcome);
+    }
+    return transactionRepository.insert(documents)
+        .then(Mono.fromSupplier(() -> {
+          outcome.inserted.addAll(documents);
+          return outcome;
+        }))
+        .onErrorResume(e -> {
+          var failed = failedIndex(e);
+          if (failed < 0) {
+            log.warn("Bulk insert of {} document(s) failed: {}", documents.size(), e.getMessage());
+            return Mono.just(outcome);
+          }
+          var accountId = documents.get(failed).getAccountId();
+          log.warn("Bulk insert stopped at document {} of {} (account {}): {}", failed, documents.size(), accountId, e.getMessage());
+          outcome.inserted.addAll(documents.subList(0, failed));
+          var rest = new ArrayList<Transaction>();
+          documents.subList(failed, documents.size()).forEach(tx -> {
+            if (accountId.equals(tx.getAccountId())) {
+              outcome.retry.add(tx);
+            } else {
+              rest.add(tx);
+            }
+          });
+          return insert(rest, outcome);
+        });
+  }
+
+  private static int failedIndex(Throwable e) {
+    for (var cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoBulkWriteException) {
+        return ((MongoBulkWriteException) cause).getWriteErrors().stream()
+            .mapToInt(BulkWriteError::getIndex)
+            .min()
+            .orElse(-1);
+      }
+    }
+    return -1;
+  }
+
+  // Devuelve la reserva de lo que no llegó a escribirse, cuenta solo lo escrito y, ya devuelta la reserva,
+  // registra uno a uno los movimientos que quedaron detrás de un error conocido
+  private Flux<BulkTransactionResult> settle(AccountBatch batch, InsertOutcome outcome) {
+    var written = batch.transactions.stream().filter(outcome.inserted::contains).count();
+    var unwritten = batch.transactions.stream().filter(tx -> !outcome.inserted.contains(tx)).mapToLong(Transaction::getAmount).sum();
+    var results = new ArrayList<BulkTransactionResult>();
+    var retry = new ArrayList<Tuple2<Long, CreateTransactionDTO>>();
+    for (int i = 0; i < batch.accepted.size(); i++) {
+      var item = batch.accepted.get(i);
+      var movement = batch.movements.get(i);
+      if (outcome.inserted.contains(movement)) {
+        results.add(BulkTransactionResult.ok(item.getT1(), batch.accountId, movement.getOperationNumber()));
+      } else if (outcome.retry.contains(movement)) {
+        retry.add(item);
+      } else {
+        results.add(BulkTransactionResult.error(item.getT1(), batch.accountId, "The operation could not be completed"));
+      }
+    }
+    var refund = unwritten == 0L ? Mono.<Void>empty() : accountBalanceService.applyMovement(batch.accountId, -unwritten).then();
+    // El contador solo decide la comisión: si falla, los movimientos ya están escritos y no se devuelven
+    var increment = written == 0L ? Mono.<Void>empty() : movementCounterService.increment(batch.accountId, YearMonth.from(batch.transactions.get(0).getRegisterDate()), written)
+        .doOnError(e -> log.warn("Could not increment movement counter of account {} by {}: {}", batch.accountId, written, e.getMessage()))
+        .onErrorResume(e -> Mono.empty())
+        .then();
+    return refund.then(increment).thenMany(Flux.fromIterable(results).concatWith(oneByOne(batch, retry)));
+  }
+
+  // En orden: cada movimiento se valida contra el saldo que dejó el anterior
+  private Flux<BulkTransactionResult> oneByOne(AccountBatch batch, List<Tuple2<Long, CreateTransactionDTO>> items) {
+    return Flux.fromIterable(items)
+        .concatMap(item -> fallback(batch, item.getT2())
+            .map(tx -> BulkTransactionResult.ok(item.getT1(), batch.accountId, tx.getOperationNumber()))
+            .onErrorResume(e -> Mono.just(BulkTransactionResult.error(item.getT1(), batch.accountId, e.getMessage()))));
+  }
+
+  private Mono<Transaction> fallback(AccountBatch batch, CreateTransactionDTO dto) {
+    var transaction = batch.feePeriod == null
+        ? accountService.createTransaction(dto)
+        : accountService.createTransaction(dto, null, false, batch.feePeriod.toString());
+    // La referencia ya está registrada (línea repetida o reenvío concurrente): se devuelve ese movimiento
+    return transaction.onErrorResume(DuplicateKeyException.class, e -> dto.getReference() == null
+        ? Mono.error(e)
+        : transactionRepository.findByReference(dto.getReference()).switchIfEmpty(Mono.error(e)));
+  }
+
+  private Transaction toTransaction(String accountId, String agent, String description, long amount) {
+    var transaction = new Transaction();
+    transaction.setAccountId(accountId);
+    transaction.setAgent(agent);
+    transaction.setDescription(description);
+    transaction.setAmount(amount);
+    return transaction;
+  }
+
+  private static class AccountBatch {
+    private final String accountId;
+    private final YearMonth feePeriod;
+    private final List<Tuple2<Long, CreateTransactionDTO>> accepted = new ArrayList<>();
+    // Movimiento principal de cada línea aceptada, en el mismo orden que accepted
+    private final List<Transaction> movements = new ArrayList<>();
+    // Movimientos y comisiones a insertar
+    private final List<Transaction> transactions = new ArrayList<>();
+    private final List<BulkTransactionResult> results = new ArrayList<>();
+    private long total;
+    // Saldo inicial que necesita la secuencia para no sobregirar la cuenta en ningún movimiento intermedio
+    private long minimumBalance;
+    private boolean reserved;
+
+    AccountBatch(String accountId, YearMonth feePeriod) {
+      this.accountId = accountId;
+      this.feePeriod = feePeriod;
+    }
+  }
+
+  private static class InsertOutcome {
+    private final Set<Transaction> inserted = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Documentos no escritos por un error conocido: se registran uno a uno después de devolver la reserva
+    private final Set<Transaction> retry = Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+}
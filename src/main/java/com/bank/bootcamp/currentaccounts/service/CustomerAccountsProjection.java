@@ -0,0 +1,333 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerAccounts;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.entity.MonthlyMovementCounter;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+// Modelo de lectura de las consultas por cliente: un documento por cliente (CustomerAccounts) que se lee con un solo
+// findById. Se actualiza en segundo plano desde los change streams de Accounts y MonthlyMovementCounters; cada cambio
+// trae el documento completo y solo se aplica si es más nuevo que lo proyectado, así los eventos repetidos o
+// desordenados no lo corrompen. Si el retraso supera account.projection.max-staleness-millis se consulta el origen.
+// Un cambio que no se puede aplicar borra los documentos afectados, que se reconstruyen en la siguiente lectura.
+@Slf4j
+@Service
+public class CustomerAccountsProjection {
+
+  private static final String ACCOUNTS = "accounts";
+  private static final String COUNTERS = "counters";
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final AccountService accountService;
+  private final AccountBalanceService accountBalanceService;
+  private final MovementCounterService movementCounterService;
+  private final Environment env;
+  private final Timer lag;
+  private final Counter dropped;
+  private final AtomicLong lastLagMillis = new AtomicLong();
+  // Streams caídos y desde cuándo; al reconectar continúan desde el último evento aplicado
+  private final Map<String, Instant> downSince = new ConcurrentHashMap<>();
+  private final Map<String, BsonValue> resumeTokens = new ConcurrentHashMap<>();
+  private final Disposable.Composite subscriptions = Disposables.composite();
+  private volatile boolean running;
+
+  public CustomerAccountsProjection(ReactiveMongoTemplate mongoTemplate, AccountService accountService, AccountBalanceService accountBalanceService,
+      MovementCounterService movementCounterService, Environment env, MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.accountService = accountService;
+    this.accountBalanceService = accountBalanceService;
+    this.movementCounterService = movementCounterService;
+    this.env = env;
+    this.lag = Timer.builder("bank.projection.lag").tag("projection", "customerAccounts")
+        .publishPercentiles(0.5, 0.99).register(meterRegistry);
+    this.dropped = Counter.builder("bank.projection.dropped").tag("projection", "customerAccounts")
+        .description("Changes that could not be applied; the affected views are rebuilt from the source").register(meterRegistry);
+    TimeGauge.builder("bank.projection.staleness", this, TimeUnit.MILLISECONDS, CustomerAccountsProjection::stalenessMillis)
+        .tag("projection", "customerAccounts").register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    var enabled = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("account.projection.enabled")).orElse("true"));
+    if (!enabled)
+      return;
+
+    var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("account.projection.concurrency")).orElse("16"));
+    var accounts = Criteria.where("operationType").in("insert", "update", "replace", "delete");
+    var counters = Criteria.where("operationType").in("insert", "update", "replace");
+    subscriptions.add(watch(ACCOUNTS, mongoTemplate.getCollectionName(Account.class), accounts, Account.class, concurrency, event -> {
+      if (event.getOperationType() == OperationType.DELETE) {
+        var key = event.getRaw() == null ? null : event.getRaw().getDocumentKey();
+        return key == null || !key.containsKey("_id") ? Mono.empty() : remove(id(key.get("_id")));
+      }
+      return event.getBody() == null ? Mono.empty() : applyAccount(event.getBody());
+    }, this::affectedByAccount));
+    subscriptions.add(watch(COUNTERS, mongoTemplate.getCollectionName(MonthlyMovementCounter.class), counters, MonthlyMovementCounter.class, concurrency,
+        event -> event.getBody() == null ? Mono.empty() : applyCounter(event.getBody()),
+        event -> event.getBody() == null ? null : query(where("accounts.accountId").is(event.getBody().getAccountId()))));
+    running = true;
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    subscriptions.dispose();
+  }
+
+  public Flux<Account> getAccounts(String customerId, CustomerType customerType) {
+    return view(customerId, customerType)
+        .map(view -> Flux.fromIterable(view.getAccounts()).map(entry -> toAccount(view, entry)))
+        .defaultIfEmpty(Flux.defer(() -> accountService.getAccountsByCustomer(customerId, customerType)))
+        .flatMapMany(accounts -> accounts);
+  }
+
+  public Flux<BalanceDTO> getBalances(String customerId, CustomerType customerType) {
+    return view(customerId, customerType)
+        .map(view -> Flux.fromIterable(view.getAccounts()).map(entry -> BalanceDTO.of(toAccount(view, entry), entry.getBalance())))
+        .defaultIfEmpty(Flux.defer(() -> accountService.getBalancesByCustomerId(customerId, customerType)))
+        .flatMapMany(balances -> balances);
+  }
+
+  // Cuentas, saldos y movimientos del mes en curso
+  public Mono<CustomerAccounts> getSummary(String customerId, CustomerType customerType) {
+    var period = YearMonth.now();
+    return view(customerId, customerType)
+        .switchIfEmpty(Mono.defer(() -> read(customerId, customerType, period)))
+        .map(view -> {
+          view.getAccounts().stream()
+              .filter(entry -> !period.toString().equals(entry.getPeriod()))
+              .forEach(entry -> {
+                entry.setPeriod(period.toString());
+                entry.setMovements(0L);
+              });
+          return view;
+        });
+  }
+
+  // Tiempo que la proyección puede ir detrás del origen: el retraso del último cambio aplicado, o el tiempo sin
+  // recibir cambios si algún stream está caído
+  public long stalenessMillis() {
+    var now = Instant.now();
+    return downSince.values().stream()
+        .mapToLong(since -> Duration.between(since, now).toMillis())
+        .max()
+        .orElse(lastLagMillis.get());
+  }
+
+  Mono<CustomerAccounts> view(String customerId, CustomerType customerType) {
+    var maxStaleness = Long.parseLong(Optional.ofNullable(env.getProperty("account.projection.max-staleness-millis")).orElse("5000"));
+    if (!running || ObjectUtils.isEmpty(customerId) || customerType == null || stalenessMillis() > maxStaleness)
+      return Mono.empty();
+    return mongoTemplate.findById(CustomerAccounts.viewId(customerId, customerType), CustomerAccounts.class)
+        .switchIfEmpty(Mono.defer(() -> build(customerId, customerType)))
+        // Cuentas anteriores al saldo materializado: se resuelven en el origen hasta que tengan saldo
+        .filter(view -> view.getAccounts().stream().allMatch(entry -> entry.getBalance() != null))
+        .onErrorResume(e -> {
+          log.warn("Customer accounts projection not available for {}: {}", customerId, e.getMessage());
+          return Mono.empty();
+        });
+  }
+
+  public Mono<Void> applyAccount(Account account) {
+    var viewId = CustomerAccounts.viewId(account.getCustomerId(), account.getCustomerType());
+    var version = Optional.ofNullable(account.getVersion()).orElse(0L);
+    var update = new Update()
+        .set("accounts.$[a].version", version)
+        .set("accounts.$[a].maintenanceFee", account.getMaintenanceFee())
+        .set("updatedDate", LocalDateTime.now())
+        .filterArray(where("a.accountId").is(account.getId()).and("a.version").lte(version));
+    if (account.getBalance() != null)
+      update.set("accounts.$[a].balance", account.getBalance());
+    return mongoTemplate.updateFirst(query(where("_id").is(viewId)), update, CustomerAccounts.class)
+        // Sin documento se construye en la primera lectura; si existe pero no tiene la cuenta, se agrega
+        .filter(result -> result.getMatchedCount() > 0 && result.getModifiedCount() == 0)
+        .flatMap(result -> entry(account, YearMonth.now()))
+        .flatMap(entry -> mongoTemplate.updateFirst(query(where("_id").is(viewId).and("accounts.accountId").ne(account.getId())),
+            new Update().push("accounts", entry).set("updatedDate", LocalDateTime.now()), CustomerAccounts.class))
+        .filter(result -> result.getModifiedCount() > 0)
+        // La cuenta cambió de cliente: se quita de la proyección anterior
+        .flatMap(result -> mongoTemplate.updateMulti(query(where("accounts.accountId").is(account.getId()).and("_id").ne(viewId)),
+            new Update().pull("accounts", new Document("accountId", account.getId())), CustomerAccounts.class))
+        .then();
+  }
+
+  public Mono<Void> applyCounter(MonthlyMovementCounter counter) {
+    var update = new Update()
+        .set("accounts.$[a].period", counter.getPeriod())
+        .set("accounts.$[a].movements", counter.getCount())
+        .set("updatedDate", LocalDateTime.now())
+        .filterArray(where("a.accountId").is(counter.getAccountId()).orOperator(
+            where("a.period").lt(counter.getPeriod()),
+            where("a.period").is(counter.getPeriod()).and("a.movements").lt(counter.getCount())));
+    return mongoTemplate.updateFirst(query(where("accounts.accountId").is(counter.getAccountId())), update, CustomerAccounts.class).then();
+  }
+
+  private Mono<Void> remove(String accountId) {
+    return mongoTemplate.updateMulti(query(where("accounts.accountId").is(accountId)),
+        new Update().pull("accounts", new Document("accountId", accountId)).set("updatedDate", LocalDateTime.now()), CustomerAccounts.class)
+        .then();
+  }
+
+  private Mono<CustomerAccounts> build(String customerId, CustomerType customerType) {
+    return read(customerId, customerType, YearMonth.now())
+        .flatMap(view -> mongoTemplate.insert(view)
+            // Un cambio que llegó entre la lectura y el insert no encontró el documento: se aplica otra vez desde el origen
+            .flatMap(saved -> refresh(customerId, customerType).thenReturn(saved))
+            .onErrorResume(DuplicateKeyException.class, e -> mongoTemplate.findById(view.getId(), CustomerAccounts.class)));
+  }
+
+  private Mono<CustomerAccounts> read(String customerId, CustomerType customerType, YearMonth period) {
+    return accountService.getAccountsByCustomer(customerId, customerType)
+        .flatMapSequential(account -> entry(account, period))
+        .collectList()
+        .map(entries -> {
+          var view = new CustomerAccounts();
+          view.setId(CustomerAccounts.viewId(customerId, customerType));
+          view.setCustomerId(customerId);
+          view.setCustomerType(customerType);
+          view.setAccounts(entries);
+          view.setCreatedDate(LocalDateTime.now());
+          view.setUpdatedDate(view.getCreatedDate());
+          return view;
+        });
+  }
+
+  private Mono<Void> refresh(String customerId, CustomerType customerType) {
+    var period = YearMonth.now();
+    return accountService.getAccountsByCustomer(customerId, customerType)
+        .concatMap(account -> applyAccount(account)
+            .then(movementCounterService.getCount(account.getId(), period))
+            .flatMap(count -> {
+              var counter = new MonthlyMovementCounter();
+              counter.setAccountId(account.getId());
+              counter.setPeriod(period.toString());
+              counter.setCount(count);
+              return applyCounter(counter);
+            }))
+        .then();
+  }
+
+  private Mono<CustomerAccounts.Entry> entry(Account account, YearMonth period) {
+    return Mono.zip(accountBalanceService.getBalance(account), movementCounterService.getCount(account.getId(), period))
+        .map(tuple -> {
+          var entry = new CustomerAccounts.Entry();
+          entry.setAccountId(account.getId());
+          entry.setMaintenanceFee(account.getMaintenanceFee());
+          entry.setBalance(tuple.getT1());
+          entry.setVersion(Optional.ofNullable(account.getVersion()).orElse(0L));
+          entry.setPeriod(period.toString());
+          entry.setMovements(tuple.getT2());
+          return entry;
+        });
+  }
+
+  private Account toAccount(CustomerAccounts view, CustomerAccounts.Entry entry) {
+    var account = new Account();
+    account.setId(entry.getAccountId());
+    account.setCustomerId(view.getCustomerId());
+    account.setCustomerType(view.getCustomerType());
+    account.setMaintenanceFee(entry.getMaintenanceFee());
+    account.setBalance(entry.getBalance());
+    account.setVersion(entry.getVersion());
+    return account;
+  }
+
+  // Los eventos se aplican en paralelo pero se confirman en orden: el resume token guardado nunca adelanta a un cambio pendiente
+  private <T> Disposable watch(String stream, String collection, Criteria filter, Class<T> type, int concurrency,
+      Function<ChangeStreamEvent<T>, Mono<Void>> apply, Function<ChangeStreamEvent<T>, Query> affected) {
+    return Flux.defer(() -> {
+      var options = ChangeStreamOptions.builder()
+          .filter(Aggregation.newAggregation(Aggregation.match(filter)))
+          .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+      Optional.ofNullable(resumeTokens.get(stream)).ifPresent(options::resumeAfter);
+      return mongoTemplate.changeStream(collection, options.build(), type);
+    })
+        .flatMapSequential(event -> apply.apply(event)
+            .retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
+            // Se borran los documentos afectados para que se reconstruyan desde el origen; si tampoco se puede, el
+            // stream falla sin guardar el token y se reanuda desde el último cambio confirmado
+            .onErrorResume(e -> {
+              dropped.increment();
+              log.warn("Customer accounts projection could not apply a change from {}, invalidating affected views: {}", collection, e.getMessage());
+              return Mono.justOrEmpty(affected.apply(event))
+                  .flatMap(views -> mongoTemplate.remove(views, CustomerAccounts.class))
+                  .then();
+            })
+            .thenReturn(event), concurrency)
+        .doOnNext(event -> {
+          Optional.ofNullable(event.getResumeToken()).ifPresent(token -> resumeTokens.put(stream, token));
+          Optional.ofNullable(event.getTimestamp()).ifPresent(timestamp -> {
+            var millis = Math.max(0, Duration.between(timestamp, Instant.now()).toMillis());
+            lastLagMillis.set(millis);
+            lag.record(millis, TimeUnit.MILLISECONDS);
+          });
+          downSince.remove(stream);
+        })
+        // Sin replica set no hay change streams: la proyección queda atrasada y las lecturas van al origen
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1))
+            .doBeforeRetry(signal -> {
+              downSince.putIfAbsent(stream, Instant.now());
+              log.warn("Customer accounts projection stream on {} failed, retrying: {}", collection, signal.failure().getMessage());
+            }))
+        .subscribe();
+  }
+
+  // La proyección de su cliente actual y cualquier otra que todavía contenga la cuenta
+  private Query affectedByAccount(ChangeStreamEvent<Account> event) {
+    var account = event.getBody();
+    var key = event.getRaw() == null ? null : event.getRaw().getDocumentKey();
+    var accountId = account != null ? account.getId() : key != null && key.containsKey("_id") ? id(key.get("_id")) : null;
+    if (accountId == null)
+      return null;
+    var views = where("accounts.accountId").is(accountId);
+    return account == null || account.getCustomerId() == null || account.getCustomerType() == null
+        ? query(views)
+        : query(new Criteria().orOperator(views, where("_id").is(CustomerAccounts.viewId(account.getCustomerId(), account.getCustomerType()))));
+  }
+
+  private static String id(BsonValue id) {
+    return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+  }
+
+}
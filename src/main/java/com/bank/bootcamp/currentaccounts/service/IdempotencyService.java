@@ -0,0 +1,168 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ObjectUtils;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.entity.IdempotencyRecord;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.repository.IdempotencyRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+// Ejecuta una sola vez cada operación con Idempotency-Key. Los reintentos devuelven el resultado original:
+// primero desde la cache local (que además une las solicitudes concurrentes de esta instancia) y luego desde
+// la colección IdempotencyKeys, compartida entre instancias. Si la operación falla el registro se borra y
+// el reintento vuelve a ejecutarla. Si la instancia que la ejecuta se cae, el registro queda en curso hasta
+// que vence su lease y entonces otra solicitud la retoma.
+@Slf4j
+@Service
+public class IdempotencyService {
+
+  private final IdempotencyRepository idempotencyRepository;
+  private final AsyncCache<String, IdempotencyRecord> cache;
+  private final Duration waitTime;
+  private final Duration pollInterval;
+  private final Duration lease;
+  private final long saveRetries;
+
+  public IdempotencyService(IdempotencyRepository idempotencyRepository, Environment env, MeterRegistry meterRegistry) {
+    this.idempotencyRepository = idempotencyRepository;
+    var maximumSize = Long.parseLong(Optional.ofNullable(env.getProperty("idempotency.cache.maximum-size")).orElse("100000"));
+    var ttl = Duration.ofSeconds(Long.parseLong(Optional.ofNullable(env.getProperty("idempotency.cache.ttl-seconds")).orElse("600")));
+    this.waitTime = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("idempotency.wait-millis")).orElse("5000")));
+    this.pollInterval = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("idempotency.poll-millis")).orElse("100")));
+    this.lease = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("idempotency.lease-millis")).orElse("30000")));
+    this.saveRetries = Long.parseLong(Optional.ofNullable(env.getProperty("idempotency.save-retries")).orElse("3"));
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "idempotency");
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> Mono<T> execute(String operation, String idempotencyKey, Object request, Supplier<Mono<T>> action) {
+    if (ObjectUtils.isEmpty(idempotencyKey))
+      return Mono.defer(action);
+    var id = operation + ":" + idempotencyKey;
+    var fingerprint = fingerprint(request);
+    var future = cache.get(id, (key, executor) -> executeOnce(id, fingerprint, (Supplier<Mono<Object>>) (Supplier<?>) action).toFuture());
+    // thenApply evita que la cancelación de un suscriptor cancele la ejecución compartida
+    return Mono.fromCompletionStage(future.thenApply(record -> record))
+        .flatMap(record -> Objects.equals(record.getFingerprint(), fingerprint)
+            ? Mono.just((T) record.getResult())
+            : Mono.error(differentRequest()));
+  }
+
+  private Mono<IdempotencyRecord> executeOnce(String id, String fingerprint, Supplier<Mono<Object>> action) {
+    var record = new IdempotencyRecord();
+    record.setId(id);
+    record.setFingerprint(fingerprint);
+    record.setCompleted(Boolean.FALSE);
+    record.setCreatedDate(LocalDateTime.now());
+    record.setLeaseUntil(record.getCreatedDate().plus(lease));
+    return idempotencyRepository.insert(record)
+        .map(inserted -> true)
+        .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false))
+        .flatMap(inserted -> inserted
+            ? Mono.defer(action)
+                .onErrorResume(e -> idempotencyRepository.deleteById(id).then(Mono.error(e)))
+                .flatMap(result -> {
+                  record.setCompleted(Boolean.TRUE);
+                  record.setResult(result);
+                  return idempotencyRepository.save(record)
+                      .retryWhen(Retry.backoff(saveRetries, pollInterval))
+                      .onErrorResume(e -> block(record, e));
+                })
+            : awaitCompleted(id, fingerprint, action));
+  }
+
+  // Otra instancia ya registró la clave: se espera su resultado sin volver a ejecutar la operación
+  private Mono<IdempotencyRecord> awaitCompleted(String id, String fingerprint, Supplier<Mono<Object>> action) {
+    return idempotencyRepository.findById(id)
+        // La ejecución original falló y su registro se borró: esta solicitud toma su lugar
+        .switchIfEmpty(Mono.defer(() -> executeOnce(id, fingerprint, action)))
+        .flatMap(record -> !Objects.equals(record.getFingerprint(), fingerprint)
+            ? Mono.<IdempotencyRecord>error(differentRequest())
+            : Boolean.TRUE.equals(record.getCompleted()) ? Mono.just(record)
+            : expired(record) ? takeOver(id, fingerprint, action) : Mono.<IdempotencyRecord>empty())
+        // Al agotar los intentos termina vacío (con el límite de repeatWhenEmpty fallaría con IllegalStateException)
+        .repeatWhenEmpty(attempts -> attempts.take(waitTime.toMillis() / Math.max(1, pollInterval.toMillis())).delayElements(pollInterval))
+        .switchIfEmpty(Mono.error(new BankValidationException("A request with the same Idempotency-Key is still in progress")));
+  }
+
+  // Propiedades de la solicitud en orden; los importes en céntimos, así 10 y 10.00 son la misma solicitud
+  static String fingerprint(Object request) {
+    var canonical = String.valueOf(request);
+    if (request != null) {
+      var bean = new BeanWrapperImpl(request);
+      canonical = request.getClass().getName() + Arrays.stream(bean.getPropertyDescriptors())
+          .map(PropertyDescriptor::getName)
+          .filter(name -> !"class".equals(name) && bean.isReadableProperty(name))
+          .sorted()
+          .map(name -> name + "=" + canonical(bean.getPropertyValue(name)))
+          .collect(Collectors.joining(",", "{", "}"));
+    }
+    return DigestUtils.md5DigestAsHex(canonical.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String canonical(Object value) {
+    if (value instanceof BigDecimal) {
+      var amount = (BigDecimal) value;
+      return Money.isValid(amount) ? String.valueOf(Money.toMinor(amount)) : amount.stripTrailingZeros().toPlainString();
+    }
+    return String.valueOf(value);
+  }
+
+  private static boolean expired(IdempotencyRecord record) {
+    return record.getLeaseUntil() != null && record.getLeaseUntil().isBefore(LocalDateTime.now());
+  }
+
+  // Solo se borra si sigue en curso con el lease vencido; si varias lo intentan, el insert decide cuál ejecuta
+  private Mono<IdempotencyRecord> takeOver(String id, String fingerprint, Supplier<Mono<Object>> action) {
+    return idempotencyRepository.deleteByIdAndCompletedFalseAndLeaseUntilBefore(id, LocalDateTime.now())
+        .then(Mono.defer(() -> executeOnce(id, fingerprint, action)));
+  }
+
+  // La operación ya se ejecutó pero su resultado no se pudo guardar: el registro queda en curso sin lease, así nadie la
+  // retoma ni la repite hasta que Mongo lo elimine. Esta solicitud (y la cache local) responden con el resultado
+  private Mono<IdempotencyRecord> block(IdempotencyRecord record, Throwable cause) {
+    log.warn("Result of {} not saved, the key stays blocked: {}", record.getId(), cause.getMessage());
+    var blocked = new IdempotencyRecord();
+    blocked.setId(record.getId());
+    blocked.setFingerprint(record.getFingerprint());
+    blocked.setCompleted(Boolean.FALSE);
+    blocked.setCreatedDate(record.getCreatedDate());
+    return idempotencyRepository.save(blocked)
+        .retryWhen(Retry.backoff(saveRetries, pollInterval))
+        .onErrorResume(e -> {
+          log.error("Idempotency record {} could not be blocked, it can be taken over when its lease expires: {}", record.getId(), e.getMessage());
+          return Mono.empty();
+        })
+        .thenReturn(record);
+  }
+
+  private BankValidationException differentRequest() {
+    return new BankValidationException("Idempotency-Key already used with a different request");
+  }
+}
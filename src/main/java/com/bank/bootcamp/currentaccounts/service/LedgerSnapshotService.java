@@ -0,0 +1,93 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import org.springframework.stereotype.Service;
+import com.bank.bootcamp.currentaccounts.dto.MovementTotals;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.repository.LedgerSnapshotRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerSnapshotService {
+
+  private final LedgerSnapshotRepository ledgerSnapshotRepository;
+  private final TransactionRepository transactionRepository;
+
+  public static String snapshotId(String accountId, YearMonth period) {
+    return accountId + "-" + period;
+  }
+
+  // Saldo del ledger: último cierre mensual más los movimientos posteriores
+  public Mono<Long> getBalance(String accountId) {
+    return ledgerSnapshotRepository.findFirstByAccountIdOrderByPeriodDesc(accountId)
+        .flatMap(snapshot -> transactionRepository.getTotalsByAccountIdAndRegisterDateFrom(accountId, periodEnd(snapshot))
+            .defaultIfEmpty(new MovementTotals())
+            .map(totals -> snapshot.getClosingBalance() + totals.getTotal()))
+        .switchIfEmpty(Mono.defer(() -> transactionRepository.getBalanceByAccountId(accountId).defaultIfEmpty(0L)));
+  }
+
+  // Saldo al final del día indicado
+  public Mono<Long> getBalanceAsOf(String accountId, LocalDate date) {
+    return getBalanceBefore(accountId, date.plusDays(1).atStartOfDay());
+  }
+
+  // Con el cierre del mes anterior solo se recorren los movimientos del mes de 'to'
+  private Mono<Long> getBalanceBefore(String accountId, LocalDateTime to) {
+    return ledgerSnapshotRepository.findFirstByAccountIdAndPeriodLessThanOrderByPeriodDesc(accountId, YearMonth.from(to).toString())
+        .flatMap(snapshot -> getTotalsBetween(accountId, periodEnd(snapshot), to)
+            .map(totals -> snapshot.getClosingBalance() + totals.getTotal()))
+        // Sin cierres anteriores no hay meses archivados antes del mes de 'to'
+        .switchIfEmpty(Mono.defer(() -> Mono.zip(
+            transactionRepository.getTotalsByAccountIdAndRegisterDateBefore(accountId, to).defaultIfEmpty(new MovementTotals()),
+            archivedTotals(accountId, YearMonth.from(to).atDay(1).atStartOfDay(), to))
+            .map(totals -> totals.getT1().getTotal() + totals.getT2().getTotal())));
+  }
+
+  // Idempotente: si el mes ya está cerrado devuelve el cierre existente
+  public Mono<LedgerSnapshot> close(String accountId, YearMonth period) {
+    var periodStart = period.atDay(1).atStartOfDay();
+    var periodEnd = period.plusMonths(1).atDay(1).atStartOfDay();
+    return ledgerSnapshotRepository.findById(snapshotId(accountId, period))
+        .switchIfEmpty(Mono.defer(() -> Mono.zip(
+            getBalanceBefore(accountId, periodStart),
+            getTotalsBetween(accountId, periodStart, periodEnd))
+            .flatMap(state -> {
+              var snapshot = new LedgerSnapshot();
+              snapshot.setId(snapshotId(accountId, period));
+              snapshot.setAccountId(accountId);
+              snapshot.setPeriod(period.toString());
+              snapshot.setClosingBalance(state.getT1() + state.getT2().getTotal());
+              snapshot.setMovementCount(state.getT2().getCount());
+              snapshot.setClosedDate(LocalDateTime.now());
+              return ledgerSnapshotRepository.save(snapshot);
+            })));
+  }
+
+  // Movimientos en [from, to), incluidos los ya trasladados al archivo
+  private Mono<MovementTotals> getTotalsBetween(String accountId, LocalDateTime from, LocalDateTime to) {
+    return Mono.zip(
+        transactionRepository.getTotalsByAccountIdAndRegisterDateBetween(accountId, from, to).defaultIfEmpty(new MovementTotals()),
+        archivedTotals(accountId, from, to))
+        .map(totals -> {
+          var sum = new MovementTotals();
+          sum.setTotal(totals.getT1().getTotal() + totals.getT2().getTotal());
+          sum.setCount(totals.getT1().getCount() + totals.getT2().getCount());
+          return sum;
+        });
+  }
+
+  private Mono<MovementTotals> archivedTotals(String accountId, LocalDateTime from, LocalDateTime to) {
+    if (!transactionRepository.isArchived(YearMonth.from(from)))
+      return Mono.just(new MovementTotals());
+    return transactionRepository.getArchivedTotals(accountId, from, to).defaultIfEmpty(new MovementTotals());
+  }
+
+  private LocalDateTime periodEnd(LedgerSnapshot snapshot) {
+    return YearMonth.parse(snapshot.getPeriod()).plusMonths(1).atDay(1).atStartOfDay();
+  }
+}
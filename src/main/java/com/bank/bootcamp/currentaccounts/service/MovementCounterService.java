@@ -0,0 +1,59 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import java.time.YearMonth;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.bank.bootcamp.currentaccounts.entity.MonthlyMovementCounter;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class MovementCounterService {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final TransactionRepository transactionRepository;
+
+  public static String counterId(String accountId, YearMonth period) {
+    return accountId + "-" + period;
+  }
+
+  public Mono<Long> getCount(String accountId, YearMonth period) {
+    return mongoTemplate.findById(counterId(accountId, period), MonthlyMovementCounter.class)
+        .map(MonthlyMovementCounter::getCount)
+        .switchIfEmpty(Mono.defer(() -> seed(accountId, period)));
+  }
+
+  // Se llama después de guardar los movimientos. Si el contador aún no existe no se crea con delta: el conteo del
+  // ledger ya incluye los movimientos recién guardados y los anteriores al contador
+  public Mono<Long> increment(String accountId, YearMonth period, long delta) {
+    return mongoTemplate.findAndModify(
+        query(where("_id").is(counterId(accountId, period))),
+        new Update().inc("count", delta),
+        options().returnNew(true),
+        MonthlyMovementCounter.class)
+        .map(MonthlyMovementCounter::getCount)
+        .switchIfEmpty(Mono.defer(() -> seed(accountId, period)));
+  }
+
+  // Periodos con movimientos anteriores al contador: se cuenta una sola vez en el servidor. Con $max varias
+  // inicializaciones concurrentes dejan el mismo valor
+  private Mono<Long> seed(String accountId, YearMonth period) {
+    var from = period.atDay(1).atStartOfDay();
+    var to = period.atEndOfMonth().atTime(23, 59, 59);
+    return transactionRepository.countByAccountIdAndRegisterDateBetween(accountId, from, to)
+        .flatMap(existing -> mongoTemplate.findAndModify(
+            query(where("_id").is(counterId(accountId, period))),
+            new Update().max("count", existing)
+                .setOnInsert("accountId", accountId)
+                .setOnInsert("period", period.toString()),
+            options().returnNew(true).upsert(true),
+            MonthlyMovementCounter.class))
+        .map(MonthlyMovementCounter::getCount);
+  }
+}
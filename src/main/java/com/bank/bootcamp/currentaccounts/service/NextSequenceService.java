@@ -3,26 +3,53 @@ package com.bank.bootcamp.currentaccounts.service;
 import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.query.Query.query;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.env.Environment;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import com.bank.bootcamp.currentaccounts.entity.Sequence;
-import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 
 @Service
-@RequiredArgsConstructor
 public class NextSequenceService {
 
   private final ReactiveMongoTemplate mongoTemplate;
+  private final int blockSize;
+  private final int prefetchThreshold;
+  private final Map<String, SequenceBlockAllocator> allocators = new ConcurrentHashMap<>();
+
+  public NextSequenceService(ReactiveMongoTemplate mongoTemplate, Environment env) {
+    this.mongoTemplate = mongoTemplate;
+    // block-size 1 mantiene el comportamiento original: un findAndModify por número
+    this.blockSize = Integer.parseInt(Optional.ofNullable(env.getProperty("sequence.block-size")).orElse("1"));
+    var prefetchPercentage = Integer.parseInt(Optional.ofNullable(env.getProperty("sequence.prefetch-percentage")).orElse("20"));
+    this.prefetchThreshold = blockSize * prefetchPercentage / 100;
+  }
 
   public <T extends Sequence> Mono<Integer> getNextSequence(String seqName)
   {
-      var counter = mongoTemplate.findAndModify(
-          query(where("_id").is(seqName)),
-          new Update().inc("seq",1),
-          options().returnNew(true).upsert(true),
-          Sequence.class);
-      return counter.map(seq -> seq.getSeq());
+    if (blockSize <= 1) {
+      return reserve(seqName, 1);
+    }
+    return allocators
+        .computeIfAbsent(seqName, name -> new SequenceBlockAllocator(size -> reserve(name, size), blockSize, prefetchThreshold))
+        .next();
+  }
+
+  // Reserva un rango contiguo y devuelve el primer número del rango
+  public Mono<Integer> getNextSequenceBlock(String seqName, int size) {
+    return reserve(seqName, size).map(hi -> hi - size + 1);
+  }
+
+  private Mono<Integer> reserve(String seqName, int size) {
+    var counter = mongoTemplate.findAndModify(
+        query(where("_id").is(seqName)),
+        new Update().inc("seq", size),
+        options().returnNew(true).upsert(true),
+        Sequence.class);
+    return counter.map(seq -> seq.getSeq());
   }
 }
@@ -0,0 +1,83 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+
+/**
+ * Entrega números de un bloque reservado en memoria (hi/lo). El reservador recibe el
+ * tamaño del bloque y devuelve el último número reservado (hi).
+ */
+public class SequenceBlockAllocator {
+
+  private final Function<Integer, Mono<Integer>> reserver;
+  private final int blockSize;
+  private final int prefetchThreshold;
+  private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, -1));
+  private final AtomicReference<Mono<Block>> nextBlock = new AtomicReference<>();
+
+  public SequenceBlockAllocator(Function<Integer, Mono<Integer>> reserver, int blockSize, int prefetchThreshold) {
+    this.reserver = reserver;
+    this.blockSize = blockSize;
+    this.prefetchThreshold = prefetchThreshold;
+  }
+
+  public Mono<Integer> next() {
+    return Mono.defer(() -> {
+      var block = current.get();
+      var value = block.take();
+      if (value != null) {
+        if (block.remaining() <= prefetchThreshold) {
+          prefetch();
+        }
+        return Mono.just(value);
+      }
+      var pending = prefetch();
+      return pending.flatMap(fresh -> {
+        // Solo el primero que vea el bloque agotado instala el nuevo; el resto reintenta
+        if (current.compareAndSet(block, fresh)) {
+          nextBlock.compareAndSet(pending, null);
+        }
+        return next();
+      });
+    });
+  }
+
+  private Mono<Block> prefetch() {
+    var pending = nextBlock.get();
+    if (pending != null) {
+      return pending;
+    }
+    var holder = new AtomicReference<Mono<Block>>();
+    var fetch = reserver.apply(blockSize)
+        .map(hi -> new Block(hi - blockSize + 1, hi))
+        .doOnError(e -> nextBlock.compareAndSet(holder.get(), null))
+        .cache();
+    holder.set(fetch);
+    if (nextBlock.compareAndSet(null, fetch)) {
+      fetch.subscribe(block -> {}, e -> {});
+      return fetch;
+    }
+    return nextBlock.get() != null ? nextBlock.get() : prefetch();
+  }
+
+  private static final class Block {
+    private final int end;
+    private final AtomicInteger cursor;
+
+    Block(int start, int end) {
+      this.end = end;
+      this.cursor = new AtomicInteger(start);
+    }
+
+    Integer take() {
+      var value = cursor.getAndUpdate(v -> v <= end ? v + 1 : v);
+      return value <= end ? value : null;
+    }
+
+    int remaining() {
+      return Math.max(0, end - cursor.get() + 1);
+    }
+  }
+}
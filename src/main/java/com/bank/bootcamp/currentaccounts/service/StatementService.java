@@ -0,0 +1,130 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.dto.MovementCursor;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Estados de cuenta mensuales en CSV comprimido, guardados en disco local ({directorio}/{yyyy-MM}/{accountId}.csv.gz).
+// Se generan una sola vez por cuenta y periodo cerrado; las descargas leen el archivo sin consultar Mongo
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+
+  private static final String HEADER = "operationNumber,registerDate,agent,description,amount";
+
+  private final TransactionRepository transactionRepository;
+  private final AccountCache accountCache;
+  private final Environment env;
+
+  public Mono<Path> getStatement(String accountId, YearMonth period) {
+    if (ObjectUtils.isEmpty(accountId))
+      return Mono.error(new BankValidationException("Account Id is required"));
+    if (!isSafeFileName(accountId))
+      return Mono.error(new BankValidationException("Invalid account Id"));
+    if (!period.isBefore(YearMonth.now()))
+      return Mono.error(new BankValidationException("The statement is available once the period is closed"));
+    return Mono.fromCallable(() -> statementPath(accountId, period))
+        .filter(Files::exists)
+        .subscribeOn(Schedulers.boundedElastic())
+        // Aún no generado por el job: se genera en la primera descarga
+        .switchIfEmpty(Mono.defer(() -> accountCache.findById(accountId)
+            .switchIfEmpty(Mono.error(new BankValidationException("Account not found")))
+            .then(generate(accountId, period))));
+  }
+
+  // Escribe en un archivo temporal y lo publica con un move atómico: nunca se sirve un archivo a medio escribir
+  public Mono<Path> generate(String accountId, YearMonth period) {
+    return Mono.fromCallable(() -> statementPath(accountId, period))
+        .flatMap(path -> generate(accountId, period, path));
+  }
+
+  private Mono<Path> generate(String accountId, YearMonth period, Path path) {
+    var temporary = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    var from = period.atDay(1).atStartOfDay();
+    var to = period.plusMonths(1).atDay(1).atStartOfDay();
+    var movements = transactionRepository.isArchived(period)
+        ? Flux.mergeComparing(MovementCursor.ORDER, transactionRepository.findArchivedMovements(accountId, from, to), transactionRepository.findStatementMovements(accountId, from, to))
+        : transactionRepository.findStatementMovements(accountId, from, to);
+    return Mono.using(
+        () -> open(temporary),
+        writer -> movements.publishOn(Schedulers.boundedElastic())
+            .doOnNext(tx -> write(writer, tx))
+            .then(),
+        this::close)
+        .then(Mono.fromCallable(() -> Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)))
+        .doOnError(e -> temporary.toFile().delete())
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  // El id forma parte de la ruta: se rechazan separadores y "..", y la ruta resuelta debe quedar dentro del directorio.
+  // getStatement ya lo rechaza con BankValidationException; aquí es la última barrera para cualquier otro llamador
+  public Path statementPath(String accountId, YearMonth period) {
+    if (!isSafeFileName(accountId))
+      throw new IllegalArgumentException("Invalid account Id");
+    var directory = Paths.get(Optional.ofNullable(env.getProperty("statements.directory")).orElse("statements")).toAbsolutePath().normalize();
+    var path = directory.resolve(period.toString()).resolve(accountId + ".csv.gz").normalize();
+    if (!path.startsWith(directory))
+      throw new IllegalArgumentException("Invalid account Id");
+    return path;
+  }
+
+  private static boolean isSafeFileName(String accountId) {
+    return accountId != null && !accountId.contains("/") && !accountId.contains("\\") && !accountId.contains("..") && accountId.indexOf('\0') < 0;
+  }
+
+  private BufferedWriter open(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    var writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8));
+    writer.write(HEADER);
+    writer.write('\n');
+    return writer;
+  }
+
+  private void write(BufferedWriter writer, Transaction tx) {
+    try {
+      writer.write(tx.getOperationNumber() + "," + tx.getRegisterDate() + "," + csv(tx.getAgent()) + "," + csv(tx.getDescription()) + "," + Money.toDecimal(tx.getAmount()).toPlainString());
+      writer.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void close(BufferedWriter writer) {
+    try {
+      writer.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String csv(String value) {
+    if (value == null)
+      return "";
+    if (value.contains(",") || value.contains("\"") || value.contains("\n"))
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    return value;
+  }
+}
@@ -0,0 +1,262 @@
+package com.bank.bootcamp.currentaccounts.service;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+import com.bank.bootcamp.currentaccounts.entity.TransferStatus;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransferRepository;
+import com.bank.bootcamp.currentaccounts.webclient.AccountWebClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferService {
+
+  private static final List<TransferStatus> DISPATCHABLE = List.of(TransferStatus.PENDING, TransferStatus.DEBITED, TransferStatus.COMPENSATING);
+
+  private final TransferRepository transferRepository;
+  private final TransactionRepository transactionRepository;
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final AccountService accountService;
+  private final AccountCache accountCache;
+  private final AccountWebClient accountWebClient;
+  private final Environment env;
+  private final StageMetrics stageMetrics;
+
+  // Registra la transferencia y el débito en la cuenta origen; el abono al producto destino se hace en segundo plano
+  public Mono<String> transfer(TransferDTO transferDTO) {
+    return stageMetrics.time("transfer", "total", Mono.justOrEmpty(transferDTO)
+        .switchIfEmpty(Mono.error(new BankValidationException("Transfer has not data")))
+        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getAmount()), "Transfer amount is required"))
+        .then(check(transferDTO, dto -> dto.getAmount().signum() < 0, "Transfer amount must be greater than zero"))
+        .then(check(transferDTO, dto -> !Money.isValid(dto.getAmount()), "Transfer amount must have at most 2 decimals"))
+        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getSourceAccountId()), "Transfer source account ID is required"))
+        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getTargetAccountType()), "Transfer account type is required"))
+        .then(check(transferDTO, dto -> ObjectUtils.isEmpty(dto.getTargetAccountId()), "Transfer account ID is required"))
+        .then(Mono.defer(() -> accountCache.findById(transferDTO.getSourceAccountId())))
+        .switchIfEmpty(Mono.error(new BankValidationException("Source account not found")))
+        .flatMap(sourceAccount -> {
+          var now = LocalDateTime.now();
+          var transfer = new Transfer();
+          transfer.setSourceAccountId(transferDTO.getSourceAccountId());
+          transfer.setTargetAccountType(transferDTO.getTargetAccountType());
+          transfer.setTargetAccountId(transferDTO.getTargetAccountId());
+          transfer.setAmount(Money.toMinor(transferDTO.getAmount()));
+          transfer.setStatus(TransferStatus.PENDING);
+          transfer.setAttempts(0);
+          // Tomada por esta solicitud: el dispatcher solo la recupera si el proceso cae antes de registrar el débito
+          transfer.setLeaseId(UUID.randomUUID().toString());
+          transfer.setNextAttemptAt(now.plus(leaseTime()));
+          transfer.setCreatedDate(now);
+          transfer.setUpdatedDate(now);
+          return transferRepository.insert(transfer);
+        })
+        .flatMap(transfer -> debit(transfer)
+            .onErrorResume(e -> debitFailed(transfer, e).then(Mono.error(e)))
+            .flatMap(tx -> transition(transfer, TransferStatus.DEBITED, new Update()
+                .set("sourceOperationNumber", tx.getOperationNumber())
+                .set("nextAttemptAt", LocalDateTime.now()))
+                // El débito ya quedó registrado: si falla el cambio de estado el dispatcher lo recupera al vencer el lease
+                .onErrorResume(e -> {
+                  log.warn("Transfer {} debited but status not updated: {}", transfer.getId(), e.getMessage());
+                  return Mono.empty();
+                }))
+            .thenReturn(transfer.getId())));
+  }
+
+  public Mono<Transfer> getTransfer(String transferId) {
+    return transferRepository.findById(transferId)
+        .switchIfEmpty(Mono.error(new BankValidationException("Transfer not found")));
+  }
+
+  // Toma hasta batchSize transferencias vencidas y las avanza un paso; varias instancias pueden ejecutarlo a la vez
+  public Flux<Transfer> dispatch(int batchSize, int concurrency) {
+    var now = LocalDateTime.now();
+    var lease = leaseTime();
+    return Flux.range(0, batchSize)
+        .concatMap(i -> claim(now, lease).map(Optional::of).defaultIfEmpty(Optional.empty()))
+        .takeWhile(Optional::isPresent)
+        .map(Optional::get)
+        .flatMap(transfer -> stageMetrics.time("transferDispatch", transfer.getStatus().name(), process(transfer))
+            .onErrorResume(e -> {
+              log.warn("Transfer {} could not be processed: {}", transfer.getId(), e.getMessage());
+              return Mono.empty();
+            }), concurrency);
+  }
+
+  private Mono<Transfer> claim(LocalDateTime now, Duration lease) {
+    return mongoTemplate.findAndModify(
+        query(where("status").in(DISPATCHABLE).and("nextAttemptAt").lte(now)).with(Sort.by("nextAttemptAt")),
+        new Update().set("leaseId", UUID.randomUUID().toString()).set("nextAttemptAt", now.plus(lease)),
+        options().returnNew(true),
+        Transfer.class);
+  }
+
+  private Mono<Transfer> process(Transfer transfer) {
+    switch (transfer.getStatus()) {
+      case PENDING:
+        return recoverDebit(transfer);
+      case DEBITED:
+        return credit(transfer);
+      case COMPENSATING:
+        return compensate(transfer);
+      default:
+        return Mono.just(transfer);
+    }
+  }
+
+  private Mono<Transaction> debit(Transfer transfer) {
+    var transactionDTO = new CreateTransactionDTO();
+    transactionDTO.setAccountId(transfer.getSourceAccountId());
+    transactionDTO.setAgent("-");
+    transactionDTO.setDescription("Transfer sent");
+    transactionDTO.setAmount(Money.toDecimal(-transfer.getAmount()));
+    return accountService.createTransaction(transactionDTO, transfer.getId(), true);
+  }
+
+  // El débito puede haber quedado en el ledger aunque createTransaction falle (por ejemplo al guardar la comisión):
+  // la solicitud ya respondió con error, así que se revierte en lugar de abonarlo. Si no se puede consultar el ledger
+  // se deja en PENDING y el dispatcher la recupera al vencer el lease
+  private Mono<Transfer> debitFailed(Transfer transfer, Throwable error) {
+    return findDebit(transfer)
+        .flatMap(tx -> transition(transfer, TransferStatus.COMPENSATING, new Update()
+            .set("sourceOperationNumber", tx.getOperationNumber())
+            .set("lastError", error.getMessage())
+            .set("nextAttemptAt", LocalDateTime.now())))
+        .switchIfEmpty(Mono.defer(() -> transition(transfer, TransferStatus.FAILED, new Update().set("lastError", error.getMessage()))))
+        .onErrorResume(e -> {
+          log.warn("Transfer {} debit failed and its ledger could not be checked: {}", transfer.getId(), e.getMessage());
+          return Mono.empty();
+        });
+  }
+
+  // La solicitud cayó sin actualizar el estado: el ledger indica si el débito llegó a registrarse
+  private Mono<Transfer> recoverDebit(Transfer transfer) {
+    return findDebit(transfer)
+        .flatMap(tx -> transition(transfer, TransferStatus.DEBITED, new Update()
+            .set("sourceOperationNumber", tx.getOperationNumber())
+            .set("nextAttemptAt", LocalDateTime.now())))
+        .switchIfEmpty(Mono.defer(() -> transition(transfer, TransferStatus.FAILED, new Update().set("lastError", "Debit not completed"))));
+  }
+
+  private Mono<Transaction> findDebit(Transfer transfer) {
+    return transactionRepository.findByTransferId(transfer.getId())
+        .filter(tx -> tx.getAmount() < 0)
+        .reduce((a, b) -> a.getOperationNumber() < b.getOperationNumber() ? a : b);
+  }
+
+  // El abono viaja con transferId como clave de idempotencia, así reintentarlo no lo aplica dos veces. Solo un rechazo
+  // del producto destino revierte el débito; un timeout o un error sin respuesta puede haberse aplicado igual
+  private Mono<Transfer> credit(Transfer transfer) {
+    var transactionDTO = new CreateTransactionDTO();
+    transactionDTO.setAccountId(transfer.getTargetAccountId());
+    transactionDTO.setAgent("-");
+    transactionDTO.setDescription("Transfer incoming " + transfer.getSourceOperationNumber());
+    transactionDTO.setAmount(Money.toDecimal(transfer.getAmount()));
+    transactionDTO.setReference(transfer.getId());
+    return accountWebClient.createTransaction(transfer.getTargetAccountType(), transactionDTO)
+        .map(operationNumber -> transition(transfer, TransferStatus.CREDITED, new Update().set("targetOperationNumber", operationNumber)))
+        .onErrorResume(e -> Mono.just(isRejected(e)
+            ? transition(transfer, TransferStatus.COMPENSATING, new Update().set("lastError", e.getMessage()).set("nextAttemptAt", LocalDateTime.now()))
+            : retryOrPark(transfer, Optional.ofNullable(e.getMessage()).orElse(e.getClass().getSimpleName()))))
+        .defaultIfEmpty(Mono.defer(() -> retryOrPark(transfer, "Credit result unknown")))
+        .flatMap(next -> next);
+  }
+
+  // Rechazo definitivo del producto destino: el abono no se aplicó. 408, 409, 425 y 429 no dicen nada del resultado
+  private static boolean isRejected(Throwable e) {
+    if (e instanceof BankValidationException)
+      return true;
+    if (!(e instanceof WebClientResponseException))
+      return false;
+    var status = ((WebClientResponseException) e).getRawStatusCode();
+    return status >= 400 && status < 500 && status != 408 && status != 409 && status != 425 && status != 429;
+  }
+
+  private Mono<Transfer> retryOrPark(Transfer transfer, String error) {
+    var attempts = transfer.getAttempts() + 1;
+    var maxAttempts = Integer.parseInt(Optional.ofNullable(env.getProperty("transfer.dispatcher.max-attempts")).orElse("5"));
+    var update = new Update().set("attempts", attempts).set("lastError", error);
+    if (attempts >= maxAttempts) {
+      log.warn("Transfer {} credit outcome unknown after {} attempt(s), left for manual review: {}", transfer.getId(), attempts, error);
+      return transition(transfer, TransferStatus.UNCERTAIN, update);
+    }
+    return transition(transfer, TransferStatus.DEBITED, update.set("nextAttemptAt", LocalDateTime.now().plus(backoff(attempts))));
+  }
+
+  // Devuelve el monto transferido a la cuenta origen; la comisión cobrada por el débito no se revierte
+  private Mono<Transfer> compensate(Transfer transfer) {
+    var transactionDTO = new CreateTransactionDTO();
+    transactionDTO.setAccountId(transfer.getSourceAccountId());
+    transactionDTO.setAgent("-");
+    transactionDTO.setDescription("Transfer reversal " + transfer.getSourceOperationNumber());
+    transactionDTO.setAmount(Money.toDecimal(transfer.getAmount()));
+    return transactionRepository.findByTransferId(transfer.getId())
+        .filter(tx -> tx.getAmount() > 0)
+        .next()
+        .switchIfEmpty(Mono.defer(() -> accountService.createTransaction(transactionDTO, transfer.getId(), false)))
+        .flatMap(tx -> transition(transfer, TransferStatus.COMPENSATED, new Update().set("reversalOperationNumber", tx.getOperationNumber())))
+        .onErrorResume(e -> {
+          var attempts = transfer.getAttempts() + 1;
+          return transition(transfer, TransferStatus.COMPENSATING, new Update()
+              .set("attempts", attempts)
+              .set("lastError", e.getMessage())
+              .set("nextAttemptAt", LocalDateTime.now().plus(backoff(attempts))));
+        });
+  }
+
+  // Solo quien tiene el lease vigente puede cambiar el estado; si lo perdió no se modifica nada y se devuelve vacío
+  private Mono<Transfer> transition(Transfer transfer, TransferStatus status, Update update) {
+    return mongoTemplate.findAndModify(
+        query(where("_id").is(transfer.getId()).and("leaseId").is(transfer.getLeaseId())),
+        update.set("status", status).set("leaseId", null).set("updatedDate", LocalDateTime.now()),
+        options().returnNew(true),
+        Transfer.class);
+  }
+
+  private Duration backoff(int attempts) {
+    var backoff = Long.parseLong(Optional.ofNullable(env.getProperty("transfer.dispatcher.backoff-millis")).orElse("1000"));
+    var maxBackoff = Long.parseLong(Optional.ofNullable(env.getProperty("transfer.dispatcher.max-backoff-millis")).orElse("60000"));
+    return Duration.ofMillis(Math.min(maxBackoff, backoff << Math.min(attempts - 1, 20)));
+  }
+
+  private Duration leaseTime() {
+    return Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("transfer.dispatcher.lease-millis")).orElse("30000")));
+  }
+
+  private <T> Mono<Void> check(T value, Predicate<T> predicate, String messageForException) {
+    return Mono.create(sink -> {
+      if (predicate.test(value)) {
+        sink.error(new BankValidationException(messageForException));
+      } else {
+        sink.success();
+      }
+    });
+  }
+}
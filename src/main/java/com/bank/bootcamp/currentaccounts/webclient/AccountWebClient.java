@@ -1,29 +1,131 @@
 package com.bank.bootcamp.currentaccounts.webclient;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.BulkTransactionResult;
 import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 
+@Slf4j
 @Service
 public class AccountWebClient {
-  private final ReactiveCircuitBreaker reactiveCircuitBreaker;
-  private WebClient webClient;
-  
-  public AccountWebClient(ReactiveResilience4JCircuitBreakerFactory reactiveCircuitBreakerFactory, Environment env) {
-    this.reactiveCircuitBreaker = reactiveCircuitBreakerFactory.create("products");
-    webClient = WebClient.create(env.getProperty("gateway.url"));
+  // Un circuit breaker por producto destino: la caída de uno no corta los abonos a los demás
+  private final Map<AccountType, ReactiveCircuitBreaker> reactiveCircuitBreakers = new EnumMap<>(AccountType.class);
+  private final WebClient webClient;
+  private final StageMetrics stageMetrics;
+  // Con transfer.credit.batch.enabled los abonos de cada producto se agrupan y se envían juntos a /{resource}/transaction/batch
+  // El sink se reemplaza cuando el dispatcher se vuelve a suscribir
+  private final Map<AccountType, FluxSink<PendingCredit>> batches = new ConcurrentHashMap<>();
+  private final Disposable.Composite dispatchers = Disposables.composite();
+  private Duration creditTimeout;
+
+  public AccountWebClient(ReactiveResilience4JCircuitBreakerFactory reactiveCircuitBreakerFactory, WebClient gatewayWebClient, Environment env, StageMetrics stageMetrics) {
+    for (var accountType : AccountType.values()) {
+      reactiveCircuitBreakers.put(accountType, reactiveCircuitBreakerFactory.create(accountType.getResource()));
+    }
+    this.webClient = gatewayWebClient;
+    this.stageMetrics = stageMetrics;
+
+    // Requiere que el producto destino exponga el endpoint batch
+    var batchEnabled = Boolean.parseBoolean(Optional.ofNullable(env.getProperty("transfer.credit.batch.enabled")).orElse("false"));
+    if (batchEnabled) {
+      var maxSize = Integer.parseInt(Optional.ofNullable(env.getProperty("transfer.credit.batch.max-size")).orElse("100"));
+      var maxWait = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("transfer.credit.batch.max-wait-millis")).orElse("5")));
+      var concurrency = Integer.parseInt(Optional.ofNullable(env.getProperty("transfer.credit.batch.concurrency")).orElse("4"));
+      creditTimeout = Duration.ofMillis(Long.parseLong(Optional.ofNullable(env.getProperty("transfer.credit.batch.timeout-millis")).orElse("10000")));
+      for (var accountType : AccountType.values()) {
+        // El FluxSink de Flux.create serializa las llamadas concurrentes a next
+        dispatchers.add(Flux.<PendingCredit>create(sink -> batches.put(accountType, sink))
+            .bufferTimeout(maxSize, maxWait)
+            // bufferTimeout no respeta la demanda cuando vence el tiempo: con todos los envíos en curso los lotes esperan aquí
+            .onBackpressureBuffer()
+            .flatMap(batch -> sendBatch(accountType, batch), concurrency)
+            // Si el dispatcher termina se crea otro sink; los abonos que estaban en el lote perdido vencen por creditTimeout
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100)).maxBackoff(Duration.ofSeconds(5))
+                .doBeforeRetry(signal -> log.warn("Credit batch dispatcher for {} failed, restarting: {}", accountType, signal.failure().getMessage())))
+            .subscribe());
+      }
+    }
   }
-  
+
   public Mono<Integer> createTransaction(AccountType accountType, CreateTransactionDTO dto) {
+    if (creditTimeout != null) {
+      return Mono.defer(() -> {
+        var pending = new PendingCredit(dto);
+        batches.get(accountType).next(pending);
+        // Sin respuesta a tiempo el resultado del abono es incierto (TimeoutException)
+        return pending.result.asMono().timeout(creditTimeout);
+      });
+    }
 
-    return webClient.post()
+    // Los errores se propagan: quien llama distingue el rechazo (4xx) de un resultado desconocido
+    return stageMetrics.time("products.createTransaction", "http", webClient.post()
         .uri(String.format("/%s/transaction", accountType.getResource()))
-        .bodyValue(dto).retrieve().bodyToMono(Integer.class)
-        .transform(balance -> reactiveCircuitBreaker.run(balance, throwable -> Mono.empty()));
+        .headers(headers -> Optional.ofNullable(dto.getReference()).ifPresent(reference -> headers.set("Idempotency-Key", "transfer-" + reference)))
+        .bodyValue(dto).retrieve().bodyToMono(Integer.class))
+        .transform(balance -> reactiveCircuitBreakers.get(accountType).run(balance, throwable -> Mono.error(throwable)));
+  }
+
+  @PreDestroy
+  public void stop() {
+    dispatchers.dispose();
+  }
+
+  // Una sola llamada por lote; cada resultado vuelve a quien espera su abono según su posición (index) en el lote
+  private Mono<Void> sendBatch(AccountType accountType, List<PendingCredit> batch) {
+    var body = batch.stream().map(pending -> pending.dto).collect(Collectors.toList());
+    return stageMetrics.time("products.createTransactionBatch", "http", webClient.post()
+        .uri(String.format("/%s/transaction/batch", accountType.getResource()))
+        .bodyValue(body).retrieve().bodyToFlux(BulkTransactionResult.class).collectList())
+        .transform(results -> reactiveCircuitBreakers.get(accountType).run(results, throwable -> Mono.error(throwable)))
+        .doOnNext(results -> {
+          var byIndex = results.stream()
+              .filter(result -> result.getIndex() != null)
+              .collect(Collectors.toMap(result -> result.getIndex().intValue(), result -> result, (first, second) -> first));
+          for (int i = 0; i < batch.size(); i++) {
+            var result = byIndex.get(i);
+            if (result == null) {
+              // Sin resultado no se sabe si se aplicó
+              batch.get(i).result.tryEmitError(new IllegalStateException("Credit result not received"));
+            } else if (result.getError() != null || result.getOperationNumber() == null) {
+              batch.get(i).result.tryEmitError(new BankValidationException(Optional.ofNullable(result.getError()).orElse("Credit not applied")));
+            } else {
+              batch.get(i).result.tryEmitValue(result.getOperationNumber());
+            }
+          }
+        })
+        .doOnError(e -> batch.forEach(pending -> pending.result.tryEmitError(e)))
+        .onErrorResume(e -> Mono.empty())
+        .then();
+  }
+
+  private static class PendingCredit {
+    private final CreateTransactionDTO dto;
+    private final Sinks.One<Integer> result = Sinks.one();
+
+    PendingCredit(CreateTransactionDTO dto) {
+      this.dto = dto;
+    }
   }
 }
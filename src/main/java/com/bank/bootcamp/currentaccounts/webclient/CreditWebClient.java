@@ -1,5 +1,8 @@
 package com.bank.bootcamp.currentaccounts.webclient;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
 import org.springframework.core.env.Environment;
@@ -9,6 +12,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
 import com.bank.bootcamp.currentaccounts.entity.CustomerType;
 import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -16,37 +24,59 @@ import reactor.core.publisher.Mono;
 public class CreditWebClient {
 
   private final ReactiveCircuitBreaker reactiveCircuitBreaker;
-  private WebClient webClient;
-  
-  
-  public CreditWebClient(ReactiveResilience4JCircuitBreakerFactory reactiveCircuitBreakerFactory, Environment env) {
-    this.reactiveCircuitBreaker = reactiveCircuitBreakerFactory.create("products");
-    webClient = WebClient.create(env.getProperty("gateway.url"));
+  private final WebClient webClient;
+  // Las consultas idénticas en vuelo comparten la misma llamada y el resultado se reutiliza unos segundos;
+  // los errores no se guardan y el fallback del circuit breaker se aplica fuera de la cache
+  private final AsyncCache<String, List<BalanceDTO>> balancesCache;
+  private final AsyncCache<String, Boolean> overdueDebtCache;
+  private final StageMetrics stageMetrics;
+
+  public CreditWebClient(ReactiveResilience4JCircuitBreakerFactory reactiveCircuitBreakerFactory, WebClient gatewayWebClient, Environment env, MeterRegistry meterRegistry, StageMetrics stageMetrics) {
+    this.reactiveCircuitBreaker = reactiveCircuitBreakerFactory.create("credits");
+    this.stageMetrics = stageMetrics;
+    this.webClient = gatewayWebClient;
+    var ttl = Duration.ofSeconds(Long.parseLong(Optional.ofNullable(env.getProperty("credits.cache.ttl-seconds")).orElse("10")));
+    var maximumSize = Long.parseLong(Optional.ofNullable(env.getProperty("credits.cache.maximum-size")).orElse("10000"));
+    balancesCache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().buildAsync();
+    overdueDebtCache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, balancesCache.synchronous(), "credit-balances");
+    CaffeineCacheMetrics.monitor(meterRegistry, overdueDebtCache.synchronous(), "credit-overdue-debt");
   }
 
   public Flux<BalanceDTO> getAllBalances(String customerId) {
     if (ObjectUtils.isEmpty(customerId)) {
       return Flux.error(new BankValidationException("Customer ID is required"));
     } else {
-      
-      var credits = webClient.get()
-          .uri("/credits/balanceByCustomer/{customerId}/{creditType}", customerId, "PERSONAL")
-          .retrieve()
-          .bodyToFlux(BalanceDTO.class)
+
+      var creditType = CustomerType.PERSONAL;
+      var credits = Mono.fromCompletionStage(() -> balancesCache.get(cacheKey(customerId, creditType), (key, executor) -> stageMetrics.time("credits.balances", "http", webClient.get()
+              .uri("/credits/balanceByCustomer/{customerId}/{creditType}", customerId, creditType)
+              .retrieve()
+              .bodyToFlux(BalanceDTO.class)
+              .collectList())
+              .toFuture())
+              .thenApply(balances -> balances))
+          .flatMapMany(Flux::fromIterable)
           .transform(balance -> reactiveCircuitBreaker.run(balance, throwable -> Flux.empty()));
-      
+
       return Flux.merge(credits)
       .parallel()
       .sequential();
     }
   }
-  
+
   public Mono<Boolean> hasOverdueDebt(String customerId, CustomerType customerType) {
-      return webClient.get()
-        .uri("/credits/hasDebt/{customerId}/{creditType}", customerId, customerType)
-        .retrieve()
-        .bodyToMono(Boolean.class)
+      return Mono.fromCompletionStage(() -> overdueDebtCache.get(cacheKey(customerId, customerType), (key, executor) -> stageMetrics.time("credits.overdueDebt", "http", webClient.get()
+              .uri("/credits/hasDebt/{customerId}/{creditType}", customerId, customerType)
+              .retrieve()
+              .bodyToMono(Boolean.class))
+              .toFuture())
+              .thenApply(hasDebt -> hasDebt))
         .transform(balance -> reactiveCircuitBreaker.run(balance, throwable -> Mono.error(new BankValidationException("Credit service not respond"))));
   }
-  
+
+  private String cacheKey(String customerId, CustomerType customerType) {
+    return customerId + ":" + customerType;
+  }
+
 }
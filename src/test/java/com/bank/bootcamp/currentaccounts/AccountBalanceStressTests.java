@@ -0,0 +1,77 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+// La reserva real (findAndModify condicional) contra un mongod: mvn test -Pembedded-mongo
+@Tag("embedded-mongo")
+@DataMongoTest(properties = {
+    "spring.mongodb.embedded.version=5.0.5",
+    "spring.cloud.config.enabled=false"
+})
+public class AccountBalanceStressTests {
+
+  @Autowired
+  private ReactiveMongoTemplate mongoTemplate;
+
+  private AccountBalanceService accountBalanceService;
+
+  @BeforeEach
+  public void setup() {
+    mongoTemplate.dropCollection(Account.class).block();
+    // La reserva no consulta el ledger
+    accountBalanceService = new AccountBalanceService(mongoTemplate, null);
+  }
+
+  @Test
+  public void concurrentReservesNeverOverdraw() {
+    var accounts = 20;
+    var operations = 20_000;
+    var openingBalance = 100_000L;
+    var ids = new ArrayList<String>();
+    for (int i = 0; i < accounts; i++) {
+      var account = new Account();
+      account.setCustomerId("STRESS-" + i);
+      account.setCustomerType(CustomerType.BUSINESS);
+      account.setMaintenanceFee(500L);
+      account.setBalance(openingBalance);
+      account.setVersion(0L);
+      ids.add(mongoTemplate.insert(account).block().getId());
+    }
+
+    // Retiros y depósitos mezclados sobre las mismas cuentas, desde varios hilos a la vez
+    var posted = Flux.range(0, operations)
+        .flatMap(i -> {
+          var accountId = ids.get(i % accounts);
+          long amount = i % 4 == 0 ? 3_000L : -4_000L;
+          return accountBalanceService.reserve(accountId, amount)
+              .map(account -> List.of(accountId, String.valueOf(amount)))
+              .subscribeOn(Schedulers.parallel());
+        }, 256)
+        .collectList()
+        .block();
+
+    assertThat(posted).isNotEmpty().hasSizeLessThan(operations);
+    for (var accountId : ids) {
+      var account = mongoTemplate.findById(accountId, Account.class).block();
+      var applied = posted.stream().filter(op -> op.get(0).equals(accountId)).collect(Collectors.toList());
+      var expected = openingBalance + applied.stream().mapToLong(op -> Long.parseLong(op.get(1))).sum();
+      assertThat(account.getBalance()).isGreaterThanOrEqualTo(0L).isEqualTo(expected);
+      assertThat(Optional.ofNullable(account.getVersion()).orElse(0L)).isEqualTo(applied.size());
+    }
+  }
+}
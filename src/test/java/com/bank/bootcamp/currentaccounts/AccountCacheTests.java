@@ -0,0 +1,46 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class AccountCacheTests {
+
+  private final Environment env = mock(Environment.class);
+  
+  @Test
+  public void accountCacheSharesLookupsAndSkipsMissingAccounts() {
+    var cacheRepository = mock(AccountRepository.class);
+    var account = new Account();
+    account.setId("CACHED");
+    var reads = new AtomicInteger();
+    when(cacheRepository.findById("CACHED")).thenAnswer(inv -> Mono.fromSupplier(() -> {
+      reads.incrementAndGet();
+      return account;
+    }).delayElement(Duration.ofMillis(50)));
+    when(cacheRepository.findById("MISSING")).thenReturn(Mono.empty());
+    
+    var meterRegistry = new SimpleMeterRegistry();
+    var cache = new AccountCache(cacheRepository, env, meterRegistry);
+    
+    var found = Flux.range(0, 20).flatMap(i -> cache.findById("CACHED")).collectList().block();
+    assertThat(found).hasSize(20).allMatch(acc -> acc == account);
+    assertThat(reads.get()).isEqualTo(1);
+    StepVerifier.create(cache.findById("MISSING")).verifyComplete();
+    StepVerifier.create(cache.findById("MISSING")).verifyComplete();
+    Mockito.verify(cacheRepository, Mockito.times(2)).findById("MISSING");
+    assertThat(meterRegistry.get("cache.gets").tag("cache", "accounts").tag("result", "hit").functionCounter().count()).isGreaterThan(0d);
+  }
+}
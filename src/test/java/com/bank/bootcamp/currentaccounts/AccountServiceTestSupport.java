@@ -0,0 +1,64 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeAll;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.LedgerSnapshotService;
+import com.bank.bootcamp.currentaccounts.service.MovementCounterService;
+import com.bank.bootcamp.currentaccounts.service.NextSequenceService;
+import com.bank.bootcamp.currentaccounts.webclient.CreditWebClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+// AccountService sobre repositorios y clientes simulados; cada clase de pruebas que la extiende recibe mocks nuevos
+public abstract class AccountServiceTestSupport {
+
+  protected static AccountService accountService;
+  protected static AccountRepository accountRepository;
+  protected static TransactionRepository transactionRepository;
+  protected static NextSequenceService nextSequenceService;
+  protected static Environment env;
+  protected static CreditWebClient creditWebClient;
+  protected static AccountBalanceService accountBalanceService;
+  protected static MovementCounterService movementCounterService;
+  protected static AccountCache accountCache;
+  protected static LedgerSnapshotService ledgerSnapshotService;
+  protected static SimpleMeterRegistry meterRegistry;
+  protected static StageMetrics stageMetrics;
+  
+  @BeforeAll
+  public static void setup() {
+    accountRepository = mock(AccountRepository.class);
+    transactionRepository = mock(TransactionRepository.class);
+    nextSequenceService = mock(NextSequenceService.class);
+    env = mock(Environment.class);
+    creditWebClient = mock(CreditWebClient.class);
+    accountBalanceService = mock(AccountBalanceService.class);
+    movementCounterService = mock(MovementCounterService.class);
+    accountCache = mock(AccountCache.class);
+    ledgerSnapshotService = mock(LedgerSnapshotService.class);
+    meterRegistry = new SimpleMeterRegistry();
+    stageMetrics = new StageMetrics(meterRegistry);
+    accountService = new AccountService(accountRepository, transactionRepository, nextSequenceService, env, creditWebClient, accountBalanceService, movementCounterService, accountCache, ledgerSnapshotService, stageMetrics);
+    
+    when(accountCache.findById(Mockito.any())).thenAnswer(inv -> accountRepository.findById(inv.<String>getArgument(0)));    
+    when(accountBalanceService.getBalance(Mockito.any(Account.class)))
+      .thenAnswer(inv -> Mono.just(Optional.ofNullable(inv.<Account>getArgument(0).getBalance()).orElse(0L)));
+    when(accountBalanceService.applyMovement(Mockito.any(), Mockito.anyLong())).thenReturn(Mono.just(new Account()));
+    // Misma semántica que el findAndModify condicional: solo aplica si el saldo resultante no es negativo
+    when(accountBalanceService.reserve(Mockito.any(), Mockito.anyLong())).thenAnswer(inv -> accountRepository.findById(inv.<String>getArgument(0))
+        .filter(acc -> Optional.ofNullable(acc.getBalance()).orElse(0L) + inv.<Long>getArgument(1) >= 0));
+    when(movementCounterService.getCount(Mockito.any(), Mockito.any())).thenReturn(Mono.just(0L));
+    when(movementCounterService.increment(Mockito.any(), Mockito.any(), Mockito.anyLong())).thenReturn(Mono.just(1L));
+  }
+}
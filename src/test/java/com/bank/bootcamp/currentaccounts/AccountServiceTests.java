@@ -0,0 +1,223 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import com.bank.bootcamp.currentaccounts.cache.AccountCache;
+import com.bank.bootcamp.currentaccounts.controller.AccountController;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.BalanceStreamService;
+import com.bank.bootcamp.currentaccounts.service.BulkTransactionService;
+import com.bank.bootcamp.currentaccounts.service.CustomerAccountsProjection;
+import com.bank.bootcamp.currentaccounts.service.IdempotencyService;
+import com.bank.bootcamp.currentaccounts.service.MovementCounterService;
+import com.bank.bootcamp.currentaccounts.service.NextSequenceService;
+import com.bank.bootcamp.currentaccounts.service.StatementService;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class AccountServiceTests extends AccountServiceTestSupport {
+
+  @Test
+  public void comissionIsChargedFromMonthlyCounter() {
+    var accountId = "acc-comission";
+    var account = Fixtures.account(accountId, 100_000L);
+    
+    var createTransactionDTO = Fixtures.transactionDTO(accountId, "BCP Huacho - Cajero 021", new BigDecimal("-100"), "Retiro cajero");
+    
+    var transactionSaved = createTransactionDTO.toTransaction();
+    transactionSaved.setId(UUID.randomUUID().toString());
+    
+    when(accountRepository.findById(accountId)).thenReturn(Mono.just(account));
+    when(nextSequenceService.getNextSequence("TransactionSequences")).thenReturn(Mono.just(1));
+    when(movementCounterService.getCount(Mockito.eq(accountId), Mockito.any())).thenReturn(Mono.just(99L));
+    Mockito.doReturn(Mono.just(transactionSaved)).when(transactionRepository).save(Mockito.any());
+    
+    var mono = accountService.createTransaction(createTransactionDTO);
+    StepVerifier.create(mono).assertNext(saved -> assertThat(saved).isNotNull()).verifyComplete();
+    // movimiento + comisión, sin recorrer los movimientos del mes
+    Mockito.verify(movementCounterService, Mockito.times(2)).increment(Mockito.eq(accountId), Mockito.any(), Mockito.eq(1L));
+    Mockito.verify(transactionRepository, Mockito.never()).findByAccountIdAndRegisterDateBetween(Mockito.eq(accountId), Mockito.any(), Mockito.any());
+  }
+  
+  @Test
+  public void reservationIsReleasedOnlyWhenTheMovementIsNotSaved() {
+    var accountId = "acc-release";
+    var account = Fixtures.account(accountId, 100_000L);
+    
+    var createTransactionDTO = Fixtures.transactionDTO(accountId, "BCP Huacho - Cajero 021", new BigDecimal("-100"), "Retiro cajero");
+    
+    when(accountRepository.findById(accountId)).thenReturn(Mono.just(account));
+    when(nextSequenceService.getNextSequence("TransactionSequences")).thenReturn(Mono.just(1));
+    Mockito.doAnswer(inv -> Mono.justOrEmpty(inv.<Transaction>getArgument(0))).when(transactionRepository).save(Mockito.any());
+    // Movimiento guardado y contador caído: el movimiento existe, la reserva no se devuelve
+    when(movementCounterService.increment(Mockito.eq(accountId), Mockito.any(), Mockito.anyLong())).thenReturn(Mono.error(new IllegalStateException("counter down")));
+    StepVerifier.create(accountService.createTransaction(createTransactionDTO))
+      .assertNext(saved -> assertThat(saved.getAmount()).isEqualTo(-10_000L))
+      .verifyComplete();
+    Mockito.verify(accountBalanceService, Mockito.never()).applyMovement(Mockito.eq(accountId), Mockito.anyLong());
+    
+    // Sin guardar el movimiento sí se devuelve
+    Mockito.doReturn(Mono.error(new IllegalStateException("write failed"))).when(transactionRepository).save(Mockito.any());
+    StepVerifier.create(accountService.createTransaction(createTransactionDTO))
+      .expectErrorMessage("write failed")
+      .verify();
+    Mockito.verify(accountBalanceService).applyMovement(accountId, 10_000L);
+    Mockito.doAnswer(inv -> Mono.justOrEmpty(inv.<Transaction>getArgument(0))).when(transactionRepository).save(Mockito.any());
+  }
+  
+  @Test
+  public void concurrentTransactionsPostOnlyWhatTheReserveAccepts() {
+    var accounts = 50;
+    var operations = 10_000;
+    var openingBalance = 100_000L;
+    
+    // Comprueba que AccountService no escribe ningún movimiento sin una reserva aceptada ni pierde reservas con
+    // solicitudes concurrentes. La reserva es un mapa en memoria: que el findAndModify condicional no deje saldos
+    // negativos lo prueba AccountBalanceStressTests contra un mongod (mvn test -Pembedded-mongo)
+    Map<String, Long> balances = new ConcurrentHashMap<>();
+    var stressAccountRepository = mock(AccountRepository.class);
+    var stressTransactionRepository = mock(TransactionRepository.class);
+    var stressBalanceService = mock(AccountBalanceService.class);
+    var stressCounterService = mock(MovementCounterService.class);
+    var stressSequenceService = mock(NextSequenceService.class);
+    var sequence = new AtomicInteger();
+    for (int i = 0; i < accounts; i++) {
+      var account = Fixtures.account("STRESS-" + i, openingBalance);
+      balances.put(account.getId(), openingBalance);
+      when(stressAccountRepository.findById(account.getId())).thenReturn(Mono.just(account));
+    }
+    when(stressBalanceService.getBalance(Mockito.any(Account.class))).thenAnswer(inv -> Mono.just(balances.get(inv.<Account>getArgument(0).getId())));
+    when(stressBalanceService.reserve(Mockito.anyString(), Mockito.anyLong())).thenAnswer(inv -> Mono.fromSupplier(() -> {
+      var applied = new boolean[1];
+      balances.computeIfPresent(inv.getArgument(0), (id, balance) -> {
+        long amount = inv.getArgument(1);
+        applied[0] = balance + amount >= 0;
+        return applied[0] ? balance + amount : balance;
+      });
+      return applied[0] ? new Account() : null;
+    }));
+    when(stressCounterService.getCount(Mockito.any(), Mockito.any())).thenReturn(Mono.just(0L));
+    when(stressCounterService.increment(Mockito.any(), Mockito.any(), Mockito.anyLong())).thenReturn(Mono.just(1L));
+    when(stressSequenceService.getNextSequence(Mockito.anyString())).thenAnswer(inv -> Mono.just(sequence.incrementAndGet()));
+    when(stressTransactionRepository.save(Mockito.any(Transaction.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+    
+    var stressCache = mock(AccountCache.class);
+    when(stressCache.findById(Mockito.any())).thenAnswer(inv -> stressAccountRepository.findById(inv.<String>getArgument(0)));
+    var stressService = new AccountService(stressAccountRepository, stressTransactionRepository, stressSequenceService, env,
+        creditWebClient, stressBalanceService, stressCounterService, stressCache, ledgerSnapshotService, stageMetrics);
+    
+    var posted = Flux.range(0, operations)
+        .flatMap(i -> {
+          // 3 retiros por cada depósito, de modo que muchas operaciones queden sin saldo
+          var dto = Fixtures.transactionDTO("STRESS-" + (i % accounts), "stress", i % 4 == 0 ? new BigDecimal("50") : new BigDecimal("-100"), "stress");
+          return stressService.createTransaction(dto)
+              .subscribeOn(Schedulers.parallel())
+              .onErrorResume(BankValidationException.class, e -> Mono.empty());
+        }, 512)
+        .collectList()
+        .block();
+    
+    var postedByAccount = new ConcurrentHashMap<String, Long>();
+    posted.forEach(tx -> postedByAccount.merge(tx.getAccountId(), tx.getAmount(), Long::sum));
+    assertThat(posted).isNotEmpty().hasSizeLessThan(operations);
+    balances.forEach((accountId, balance) -> {
+      assertThat(balance).isGreaterThanOrEqualTo(0L);
+      assertThat(balance).isEqualTo(openingBalance + postedByAccount.getOrDefault(accountId, 0L));
+    });
+  }
+  
+  @Test
+  public void customerBalancesIncludeArchivedPeriodsInAccountOrder() {
+    var accounts = new ArrayList<Account>();
+    for (int i = 0; i < 5; i++) {
+      var account = new Account();
+      account.setId("CB-" + i);
+      account.setCustomerId("cb123456");
+      account.setCustomerType(CustomerType.BUSINESS);
+      account.setMaintenanceFee(500L);
+      // Las cuentas impares son anteriores al saldo materializado
+      account.setBalance(i % 2 == 0 ? i * 1_000L : null);
+      accounts.add(account);
+    }
+    when(accountRepository.findByCustomerIdAndCustomerType("cb123456", CustomerType.BUSINESS)).thenReturn(Flux.fromIterable(accounts));
+    var customerBalanceService = mock(AccountBalanceService.class);
+    when(customerBalanceService.getBalance(Mockito.any(Account.class))).thenAnswer(inv -> Mono.justOrEmpty(inv.<Account>getArgument(0).getBalance()));
+    // Saldo inicializado desde el ledger, incluidos los meses archivados; CB-3 responde más rápido que CB-1
+    when(customerBalanceService.getBalance(accounts.get(1))).thenReturn(Mono.just(700L).delayElement(Duration.ofMillis(100)));
+    when(customerBalanceService.getBalance(accounts.get(3))).thenReturn(Mono.just(0L));
+    var customerService = new AccountService(accountRepository, transactionRepository, nextSequenceService, env, creditWebClient,
+        customerBalanceService, movementCounterService, accountCache, ledgerSnapshotService, stageMetrics);
+    
+    StepVerifier.create(customerService.getBalancesByCustomerId("cb123456", CustomerType.BUSINESS).map(BalanceDTO::getAmount))
+      .expectNext(new BigDecimal("0.00"), new BigDecimal("7.00"), new BigDecimal("20.00"), new BigDecimal("0.00"), new BigDecimal("40.00"))
+      .verifyComplete();
+    Mockito.verify(customerBalanceService, Mockito.times(5)).getBalance(Mockito.any(Account.class));
+    Mockito.verify(accountRepository, Mockito.never()).findById("CB-1");
+  }
+  
+  @Test
+  public void movementsArePagedByCursorAndStreamed() {
+    var accountId = "ACC-PAGED";
+    var first = new Transaction();
+    first.setAccountId(accountId);
+    first.setOperationNumber(7);
+    first.setRegisterDate(LocalDateTime.of(2022, 4, 3, 10, 15, 30));
+    var second = new Transaction();
+    second.setAccountId(accountId);
+    second.setOperationNumber(8);
+    second.setRegisterDate(LocalDateTime.of(2022, 4, 3, 10, 15, 30));
+    
+    var periodEnd = LocalDateTime.of(2022, 5, 1, 0, 0);
+    when(transactionRepository.findPageAfter(Mockito.eq(accountId), Mockito.eq(LocalDateTime.of(2022, 4, 1, 0, 0)), Mockito.eq(Integer.MIN_VALUE), Mockito.eq(periodEnd), Mockito.any()))
+      .thenReturn(Flux.just(first, second));
+    when(transactionRepository.findPageAfter(Mockito.eq(accountId), Mockito.eq(first.getRegisterDate()), Mockito.eq(7), Mockito.eq(periodEnd), Mockito.any()))
+      .thenReturn(Flux.just(second));
+    
+    StepVerifier.create(accountService.getTransactionsByAccountIdAndPeriod(accountId, LocalDate.of(2022, 4, 1), "2022-04-03T10:15:30_7", 50))
+      .assertNext(tx -> assertThat(tx.getOperationNumber()).isEqualTo(8))
+      .verifyComplete();
+    StepVerifier.create(accountService.getTransactionsByAccountIdAndPeriod(accountId, LocalDate.of(2022, 4, 1), "not-a-cursor", 50))
+      .expectError(BankValidationException.class)
+      .verify();
+    
+    var client = WebTestClient.bindToController(new AccountController(accountService, mock(BulkTransactionService.class), mock(TransferService.class), mock(IdempotencyService.class), mock(StatementService.class), mock(BalanceStreamService.class), mock(CustomerAccountsProjection.class))).build();
+    client.get().uri("/currentAccounts/movements/{accountId}/2022/4", accountId)
+      .accept(MediaType.APPLICATION_NDJSON).exchange()
+      .expectStatus().isOk()
+      .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+      .expectBodyList(Transaction.class).hasSize(2);
+    client.get().uri("/currentAccounts/movements/{accountId}/2022/4", accountId)
+      .accept(MediaType.TEXT_EVENT_STREAM).header("Last-Event-ID", "2022-04-03T10:15:30_7").exchange()
+      .expectStatus().isOk()
+      .expectBody(String.class).value(body -> assertThat(body).contains("id:2022-04-03T10:15:30_8").doesNotContain("_7"));
+    client.get().uri("/currentAccounts/movements/{accountId}/2022/4", accountId)
+      .exchange()
+      .expectStatus().isOk()
+      .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+  }
+}
@@ -0,0 +1,142 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.bank.bootcamp.currentaccounts.config.GatewayWebClientConfig;
+import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.BulkTransactionResult;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import com.bank.bootcamp.currentaccounts.webclient.AccountWebClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+public class AccountWebClientTests {
+
+  private final StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
+  
+  @Test
+  public void transferCreditsAreCoalescedIntoOneBatchRequest() throws Exception {
+    var hits = new AtomicInteger();
+    var objectMapper = new ObjectMapper();
+    var server = HttpServer.create().port(0)
+        .route(routes -> routes.post("/savingAccounts/transaction/batch", (request, response) -> request.receive().aggregate().asString()
+            .flatMapMany(body -> {
+              hits.incrementAndGet();
+              try {
+                var credits = objectMapper.readValue(body, CreateTransactionDTO[].class);
+                var results = new ArrayList<BulkTransactionResult>();
+                for (int i = 0; i < credits.length; i++) {
+                  results.add("FAIL".equals(credits[i].getAccountId())
+                      ? BulkTransactionResult.error((long) i, credits[i].getAccountId(), "Account not found")
+                      : BulkTransactionResult.ok((long) i, credits[i].getAccountId(), 100 + Integer.parseInt(credits[i].getAccountId())));
+                }
+                return response.header("Content-Type", "application/json").sendString(Mono.just(objectMapper.writeValueAsString(results)));
+              } catch (IOException e) {
+                return Mono.error(e);
+              }
+            })))
+        .bindNow();
+    var batchEnv = mock(Environment.class);
+    when(batchEnv.getProperty("gateway.url")).thenReturn("http://localhost:" + server.port());
+    when(batchEnv.getProperty("transfer.credit.batch.enabled")).thenReturn("true");
+    when(batchEnv.getProperty("transfer.credit.batch.max-wait-millis")).thenReturn("200");
+    var gatewayConfig = new GatewayWebClientConfig();
+    var connectionProvider = gatewayConfig.gatewayConnectionProvider(batchEnv);
+    var client = new AccountWebClient(new ReactiveResilience4JCircuitBreakerFactory(),
+        gatewayConfig.gatewayWebClient(WebClient.builder(), connectionProvider, batchEnv), batchEnv, stageMetrics);
+    try {
+      var credits = Flux.range(0, 10).flatMap(i -> {
+        var dto = new CreateTransactionDTO();
+        dto.setAccountId(String.valueOf(i));
+        dto.setAmount(new BigDecimal("10"));
+        return client.createTransaction(AccountType.SAVING, dto);
+      }).collectList().block();
+      // Cada abono recibe su propio número de operación aunque viajen en una sola solicitud
+      assertThat(credits).containsExactlyInAnyOrder(100, 101, 102, 103, 104, 105, 106, 107, 108, 109);
+      assertThat(hits.get()).isEqualTo(1);
+      
+      var failed = new CreateTransactionDTO();
+      failed.setAccountId("FAIL");
+      var ok = new CreateTransactionDTO();
+      ok.setAccountId("7");
+      StepVerifier.create(Flux.merge(client.createTransaction(AccountType.SAVING, failed).onErrorResume(e -> Mono.just(-1)),
+          client.createTransaction(AccountType.SAVING, ok)).collectList())
+          .assertNext(results -> assertThat(results).containsExactlyInAnyOrder(-1, 107))
+          .verifyComplete();
+      assertThat(hits.get()).isEqualTo(2);
+    } finally {
+      client.stop();
+      server.disposeNow();
+      connectionProvider.dispose();
+    }
+  }
+  
+  @Test
+  public void creditBatchesQueueWhenAllSendsAreInFlight() {
+    var objectMapper = new ObjectMapper();
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    var server = HttpServer.create().port(0)
+        .route(routes -> routes.post("/savingAccounts/transaction/batch", (request, response) -> request.receive().aggregate().asString()
+            .flatMapMany(body -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              try {
+                var credits = objectMapper.readValue(body, CreateTransactionDTO[].class);
+                var results = new ArrayList<BulkTransactionResult>();
+                for (int i = 0; i < credits.length; i++) {
+                  results.add(BulkTransactionResult.ok((long) i, credits[i].getAccountId(), Integer.parseInt(credits[i].getAccountId())));
+                }
+                // Respuesta lenta: mientras tanto el timer de bufferTimeout sigue cerrando lotes
+                return response.header("Content-Type", "application/json")
+                    .sendString(Mono.just(objectMapper.writeValueAsString(results)).delayElement(Duration.ofMillis(100)).doFinally(signal -> inFlight.decrementAndGet()));
+              } catch (IOException e) {
+                return Mono.error(e);
+              }
+            })))
+        .bindNow();
+    var batchEnv = mock(Environment.class);
+    when(batchEnv.getProperty("gateway.url")).thenReturn("http://localhost:" + server.port());
+    when(batchEnv.getProperty("transfer.credit.batch.enabled")).thenReturn("true");
+    when(batchEnv.getProperty("transfer.credit.batch.max-size")).thenReturn("2");
+    when(batchEnv.getProperty("transfer.credit.batch.max-wait-millis")).thenReturn("1");
+    when(batchEnv.getProperty("transfer.credit.batch.concurrency")).thenReturn("1");
+    when(batchEnv.getProperty("transfer.credit.batch.timeout-millis")).thenReturn("3000");
+    var gatewayConfig = new GatewayWebClientConfig();
+    var connectionProvider = gatewayConfig.gatewayConnectionProvider(batchEnv);
+    var client = new AccountWebClient(new ReactiveResilience4JCircuitBreakerFactory(),
+        gatewayConfig.gatewayWebClient(WebClient.builder(), connectionProvider, batchEnv), batchEnv, stageMetrics);
+    try {
+      // 20 abonos en ráfaga: más lotes que envíos permitidos en curso; ningún abono se pierde ni vence
+      var credits = Flux.range(0, 20)
+          .flatMap(i -> Mono.delay(Duration.ofMillis(i % 2 == 0 ? 0 : i * 5L)).then(Mono.defer(() -> {
+            var dto = new CreateTransactionDTO();
+            dto.setAccountId(String.valueOf(i));
+            dto.setAmount(new BigDecimal("10"));
+            return client.createTransaction(AccountType.SAVING, dto);
+          })))
+          .collectList()
+          .block(Duration.ofSeconds(30));
+      assertThat(credits).hasSize(20).doesNotHaveDuplicates();
+      assertThat(maxInFlight.get()).isEqualTo(1);
+    } finally {
+      client.stop();
+      server.disposeNow();
+      connectionProvider.dispose();
+    }
+  }
+}
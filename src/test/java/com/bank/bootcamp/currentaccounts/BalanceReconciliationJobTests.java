@@ -0,0 +1,56 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDrift;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.job.BalanceReconciliationJob;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class BalanceReconciliationJobTests {
+
+  private final Environment env = mock(Environment.class);
+  
+  @Test
+  public void reconciliationReportsOnlyAccountsWithDrift() {
+    var inSync = new Account();
+    inSync.setId("IN-SYNC");
+    var drifted = new Account();
+    drifted.setId("DRIFTED");
+    
+    var inSyncDrift = new BalanceDrift();
+    inSyncDrift.setAccountId(inSync.getId());
+    inSyncDrift.setSnapshot(5_000L);
+    inSyncDrift.setLedger(5_000L);
+    var driftedDrift = new BalanceDrift();
+    driftedDrift.setAccountId(drifted.getId());
+    driftedDrift.setSnapshot(5_000L);
+    driftedDrift.setLedger(4_000L);
+    driftedDrift.setCorrected(Boolean.TRUE);
+    
+    var jobAccountRepository = mock(AccountRepository.class);
+    var jobBalanceService = mock(AccountBalanceService.class);
+    when(jobAccountRepository.findAll()).thenReturn(Flux.just(inSync, drifted));
+    when(jobBalanceService.reconcile(Mockito.eq("IN-SYNC"), Mockito.anyLong(), Mockito.anyBoolean(), Mockito.any())).thenReturn(Mono.just(inSyncDrift));
+    when(jobBalanceService.reconcile(Mockito.eq("DRIFTED"), Mockito.anyLong(), Mockito.anyBoolean(), Mockito.any())).thenReturn(Mono.just(driftedDrift));
+    
+    var registry = new SimpleMeterRegistry();
+    var job = new BalanceReconciliationJob(jobAccountRepository, jobBalanceService, env, registry);
+    StepVerifier.create(job.reconcile()).assertNext(drift -> {
+      assertThat(drift.getAccountId()).isEqualTo("DRIFTED");
+      assertThat(drift.getDrift()).isEqualTo(-1_000L);
+      assertThat(drift.getCorrected()).isTrue();
+    }).verifyComplete();
+    // Las diferencias se publican para poder alertar sobre ellas
+    assertThat(registry.get("bank.balance.drift").counter().count()).isEqualTo(1.0);
+  }
+}
@@ -0,0 +1,78 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.service.BalanceStreamService;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class BalanceStreamServiceTests extends AccountServiceTestSupport {
+
+  @Test
+  public void balanceChangesArePushedFromOneSharedChangeStream() {
+    var changes = Sinks.many().multicast().<ChangeStreamEvent<Document>>directBestEffort();
+    var streamTemplate = mock(ReactiveMongoTemplate.class);
+    when(streamTemplate.getCollectionName(Account.class)).thenReturn("Accounts");
+    when(streamTemplate.changeStream(Mockito.eq("Accounts"), Mockito.any(ChangeStreamOptions.class), Mockito.eq(Document.class))).thenReturn(changes.asFlux());
+    var account = Fixtures.account("RT-1", 10_000L);
+    account.setMaintenanceFee(500L);
+    when(accountRepository.findById("RT-1")).thenReturn(Mono.just(account));
+    var streamRegistry = new SimpleMeterRegistry();
+    var balanceStream = new BalanceStreamService(streamTemplate, accountService, accountCache, env, streamRegistry);
+    balanceStream.start();
+    Supplier<Double> channels = () -> streamRegistry.get("bank.balance.stream.accounts").gauge().value();
+    
+    StepVerifier.create(balanceStream.subscribe("RT-1").map(BalanceDTO::getAmount))
+      .expectNext(new BigDecimal("100.00"))
+      .then(() -> {
+        changes.tryEmitNext(balanceChange("RT-2", 9_000L));
+        changes.tryEmitNext(balanceChange("RT-1", 15_000L));
+      })
+      .expectNext(new BigDecimal("150.00"))
+      .thenCancel()
+      .verify();
+    assertThat(channels.get()).isZero();
+    
+    // Un suscriptor lento recibe solo el último saldo
+    StepVerifier.create(balanceStream.subscribe("RT-1").map(BalanceDTO::getAmount), 1)
+      .expectNext(new BigDecimal("100.00"))
+      .then(() -> {
+        assertThat(channels.get()).isEqualTo(1d);
+        changes.tryEmitNext(balanceChange("RT-1", 8_000L));
+        changes.tryEmitNext(balanceChange("RT-1", 7_000L));
+        changes.tryEmitNext(balanceChange("RT-1", 6_000L));
+      })
+      .thenRequest(5)
+      .expectNext(new BigDecimal("60.00"))
+      .thenCancel()
+      .verify();
+    balanceStream.stop();
+  }
+  
+  private ChangeStreamEvent<Document> balanceChange(String accountId, Long balance) {
+    var raw = new ChangeStreamDocument<Document>(OperationType.UPDATE, new BsonDocument(), null, null, null,
+        new BsonDocument("_id", new BsonString(accountId)), null, new UpdateDescription(List.of(), new BsonDocument("balance", new BsonInt64(balance))), null, null);
+    return new ChangeStreamEvent<>(raw, Document.class, mock(MongoConverter.class));
+  }
+}
@@ -0,0 +1,177 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.BulkTransactionService;
+import com.bank.bootcamp.currentaccounts.service.MovementCounterService;
+import com.bank.bootcamp.currentaccounts.service.NextSequenceService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class BulkTransactionServiceTests {
+
+  private AccountRepository accountRepository;
+  private TransactionRepository transactionRepository;
+  private NextSequenceService sequenceService;
+  private AccountBalanceService balanceService;
+  private MovementCounterService counterService;
+  // Registro uno a uno, cuando la reserva de la cuenta o la inserción en bloque no se pudo hacer
+  private AccountService accountService;
+  private BulkTransactionService bulkService;
+
+  @BeforeEach
+  public void setup() {
+    accountRepository = mock(AccountRepository.class);
+    transactionRepository = mock(TransactionRepository.class);
+    sequenceService = mock(NextSequenceService.class);
+    balanceService = mock(AccountBalanceService.class);
+    counterService = mock(MovementCounterService.class);
+    accountService = mock(AccountService.class);
+    bulkService = new BulkTransactionService(accountRepository, transactionRepository, sequenceService,
+        balanceService, counterService, accountService, mock(Environment.class));
+
+    when(counterService.getCount(Mockito.any(), Mockito.any())).thenReturn(Mono.just(0L));
+    when(counterService.increment(Mockito.any(), Mockito.any(), Mockito.anyLong())).thenReturn(Mono.just(1L));
+    when(transactionRepository.insert(Mockito.<Iterable<Transaction>>any())).thenAnswer(inv -> Flux.fromIterable(inv.<Iterable<Transaction>>getArgument(0)));
+  }
+
+  @Test
+  public void bulkTransactionsAreValidatedPerAccountAndInsertedTogether() {
+    var account = Fixtures.account("BULK-A", 10_000L);
+    when(accountRepository.findById("BULK-A")).thenReturn(Mono.just(account));
+    when(accountRepository.findById("BULK-B")).thenReturn(Mono.empty());
+    when(balanceService.getBalance(account)).thenReturn(Mono.just(10_000L));
+    // Neto -50, pero el -100 va después del +50: la secuencia necesita al menos 50 de saldo inicial
+    when(balanceService.reserve("BULK-A", -5_000L, 5_000L)).thenReturn(Mono.just(account));
+    when(sequenceService.getNextSequenceBlock("TransactionSequences", 2)).thenReturn(Mono.just(10));
+
+    var lines = Flux.just(
+        bulkLine("BULK-A", "agente", new BigDecimal("50")),
+        bulkLine("BULK-A", "agente", new BigDecimal("-200")),
+        bulkLine("BULK-A", "agente", new BigDecimal("-100")),
+        bulkLine("BULK-A", null, new BigDecimal("10")),
+        bulkLine("BULK-B", "agente", new BigDecimal("10")));
+
+    StepVerifier.create(bulkService.createTransactions(lines, null))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(10))
+      .assertNext(r -> assertThat(r.getError()).isEqualTo("Insuficient balance"))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(11))
+      .assertNext(r -> assertThat(r.getError()).isEqualTo("Agent is required"))
+      .assertNext(r -> assertThat(r.getError()).isEqualTo("Account not found"))
+      .verifyComplete();
+    Mockito.verify(transactionRepository, Mockito.times(1)).insert(Mockito.<Iterable<Transaction>>any());
+    Mockito.verify(counterService).increment(Mockito.eq("BULK-A"), Mockito.any(), Mockito.eq(2L));
+  }
+
+  @Test
+  public void bulkWriteRefundsWhatWasNotInsertedAndRetriesItInOrder() {
+    var accountC = Fixtures.account("BULK-C", 10_000L);
+    var accountD = Fixtures.account("BULK-D", 10_000L);
+    when(accountRepository.findById("BULK-C")).thenReturn(Mono.just(accountC));
+    when(accountRepository.findById("BULK-D")).thenReturn(Mono.just(accountD));
+    when(balanceService.getBalance(Mockito.any())).thenReturn(Mono.just(10_000L));
+    when(balanceService.reserve("BULK-C", 5_000L, 0L)).thenReturn(Mono.just(accountC));
+    when(balanceService.reserve("BULK-D", -1_000L, 1_000L)).thenReturn(Mono.just(accountD));
+    when(balanceService.applyMovement(Mockito.any(), Mockito.anyLong())).thenReturn(Mono.just(accountC));
+    when(counterService.increment(Mockito.any(), Mockito.any(), Mockito.anyLong())).thenReturn(Mono.error(new IllegalStateException("counter down")));
+    when(sequenceService.getNextSequenceBlock("TransactionSequences", 4)).thenReturn(Mono.just(20));
+    when(transactionRepository.findByReferenceIn(Mockito.any())).thenReturn(Flux.empty());
+    // El segundo documento de BULK-C choca con el índice de referencias: el primero quedó escrito y la inserción se cortó ahí
+    var bulkError = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+        List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)), null, new ServerAddress(), Set.of());
+    var insertCalls = new ArrayList<List<Transaction>>();
+    Mockito.doAnswer(inv -> {
+      var documents = new ArrayList<Transaction>();
+      inv.<Iterable<Transaction>>getArgument(0).forEach(documents::add);
+      insertCalls.add(documents);
+      return insertCalls.size() == 1 ? Flux.error(new DuplicateKeyException("E11000", bulkError)) : Flux.fromIterable(documents);
+    }).when(transactionRepository).insert(Mockito.<Iterable<Transaction>>any());
+    // Uno a uno: la línea repetida devuelve el movimiento ya registrado con su referencia
+    var existing = new Transaction();
+    existing.setAccountId("BULK-C");
+    existing.setOperationNumber(42);
+    existing.setReference("FILE-1:1");
+    when(transactionRepository.findByReference("FILE-1:1")).thenReturn(Mono.just(existing));
+    var retried = new Transaction();
+    retried.setOperationNumber(30);
+    when(accountService.createTransaction(Mockito.any())).thenAnswer(inv -> "FILE-1:1".equals(inv.<CreateTransactionDTO>getArgument(0).getReference())
+        ? Mono.error(new DuplicateKeyException("E11000"))
+        : Mono.just(retried));
+
+    var lines = Flux.just(
+        bulkLine("BULK-C", "agente", new BigDecimal("100")),
+        bulkLine("BULK-C", "agente", new BigDecimal("-20")),
+        bulkLine("BULK-D", "agente", new BigDecimal("-10")),
+        bulkLine("BULK-C", "agente", new BigDecimal("-30")));
+
+    StepVerifier.create(bulkService.createTransactions(lines, "FILE-1"))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(20))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(42))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(23))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(30))
+      .verifyComplete();
+    // BULK-D se vuelve a insertar sin los documentos de BULK-C que quedaron detrás del error
+    assertThat(insertCalls).hasSize(2);
+    assertThat(insertCalls.get(1)).extracting(Transaction::getReference).containsExactly("FILE-1:2");
+    var inOrder = Mockito.inOrder(balanceService, accountService);
+    inOrder.verify(balanceService).applyMovement("BULK-C", 5_000L);
+    inOrder.verify(accountService, Mockito.times(2)).createTransaction(Mockito.any());
+    Mockito.verify(balanceService, Mockito.never()).applyMovement(Mockito.eq("BULK-D"), Mockito.anyLong());
+    Mockito.verify(counterService).increment(Mockito.eq("BULK-C"), Mockito.any(), Mockito.eq(1L));
+    Mockito.verify(counterService).increment(Mockito.eq("BULK-D"), Mockito.any(), Mockito.eq(1L));
+  }
+
+  @Test
+  public void bulkRetryWithTheSameKeyDoesNotRepostLines() {
+    var account = Fixtures.account("BULK-E", 10_000L);
+    when(accountRepository.findById("BULK-E")).thenReturn(Mono.just(account));
+    when(balanceService.getBalance(account)).thenReturn(Mono.just(10_000L));
+    when(balanceService.reserve("BULK-E", -2_000L, 2_000L)).thenReturn(Mono.just(account));
+    when(sequenceService.getNextSequenceBlock("TransactionSequences", 1)).thenReturn(Mono.just(50));
+    // El envío anterior alcanzó a registrar la primera línea
+    var posted = new Transaction();
+    posted.setAccountId("BULK-E");
+    posted.setOperationNumber(7);
+    posted.setReference("FILE-2:0");
+    when(transactionRepository.findByReferenceIn(Mockito.any())).thenReturn(Flux.just(posted));
+
+    var lines = Flux.just(
+        bulkLine("BULK-E", "agente", new BigDecimal("-50")),
+        bulkLine("BULK-E", "agente", new BigDecimal("-20")));
+
+    StepVerifier.create(bulkService.createTransactions(lines, "FILE-2"))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(7))
+      .assertNext(r -> assertThat(r.getOperationNumber()).isEqualTo(50))
+      .verifyComplete();
+    // Solo se reserva y se inserta la línea que faltaba
+    Mockito.verify(balanceService, Mockito.times(1)).reserve(Mockito.any(), Mockito.anyLong(), Mockito.anyLong());
+    Mockito.verify(transactionRepository).insert(Mockito.<Iterable<Transaction>>argThat(documents ->
+        documents.iterator().next().getReference().equals("FILE-2:1")));
+  }
+
+  private CreateTransactionDTO bulkLine(String accountId, String agent, BigDecimal amount) {
+    return Fixtures.transactionDTO(accountId, agent, amount, "Carga nocturna");
+  }
+}
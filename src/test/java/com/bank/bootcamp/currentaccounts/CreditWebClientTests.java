@@ -0,0 +1,79 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.bank.bootcamp.currentaccounts.config.GatewayWebClientConfig;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import com.bank.bootcamp.currentaccounts.webclient.CreditWebClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+public class CreditWebClientTests {
+
+  private final StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
+  
+  @Test
+  public void creditCallsAreCoalescedAndCached() {
+    var hits = new AtomicInteger();
+    var server = HttpServer.create().port(0)
+        .route(routes -> routes.get("/credits/hasDebt/{customerId}/{creditType}", (request, response) -> {
+          hits.incrementAndGet();
+          return response.header("Content-Type", "application/json").sendString(Mono.just("false").delayElement(Duration.ofMillis(100)));
+        }))
+        .bindNow();
+    var creditEnv = mock(Environment.class);
+    when(creditEnv.getProperty("gateway.url")).thenReturn("http://localhost:" + server.port());
+    when(creditEnv.getProperty("gateway.pool.max-connections")).thenReturn("2");
+    var gatewayConfig = new GatewayWebClientConfig();
+    var connectionProvider = gatewayConfig.gatewayConnectionProvider(creditEnv);
+    try {
+      var circuitBreakerFactory = new ReactiveResilience4JCircuitBreakerFactory();
+      var client = new CreditWebClient(circuitBreakerFactory, gatewayConfig.gatewayWebClient(WebClient.builder(), connectionProvider, creditEnv), creditEnv, new SimpleMeterRegistry(), stageMetrics);
+      
+      var results = Flux.range(0, 10)
+          .flatMap(i -> client.hasOverdueDebt("bb123456", CustomerType.BUSINESS))
+          .collectList().block();
+      assertThat(results).hasSize(10).containsOnly(Boolean.FALSE);
+      assertThat(client.hasOverdueDebt("bb123456", CustomerType.BUSINESS).block()).isFalse();
+      assertThat(hits.get()).isEqualTo(1);
+      
+      assertThat(client.hasOverdueDebt("bb123456", CustomerType.PERSONAL).block()).isFalse();
+      assertThat(hits.get()).isEqualTo(2);
+      // Pool compartido con límite propio y circuit breaker separado del de los productos
+      assertThat(connectionProvider.maxConnections()).isEqualTo(2);
+      assertThat(circuitBreakerFactory.getCircuitBreakerRegistry().getAllCircuitBreakers().map(breaker -> breaker.getName()).toJavaList()).containsExactly("credits");
+    } finally {
+      server.disposeNow();
+      connectionProvider.dispose();
+    }
+  }
+  
+  @Test
+  public void gatewayCircuitBreakersOutlastTheResponseTimeout() {
+    var breakerEnv = mock(Environment.class);
+    var factory = new ReactiveResilience4JCircuitBreakerFactory();
+    new GatewayWebClientConfig().gatewayCircuitBreakers(breakerEnv).customize(factory);
+    // Con el TimeLimiter por defecto (1 s) esta llamada se cortaría
+    StepVerifier.create(factory.create("credits").run(Mono.just(1).delayElement(Duration.ofMillis(1_500)), Mono::error))
+      .expectNext(1)
+      .verifyComplete();
+    
+    // Un timeout que no supera al del cliente HTTP se rechaza al crear el circuit breaker
+    when(breakerEnv.getProperty("gateway.circuit-breaker.savingAccounts.timeout-millis")).thenReturn("5000");
+    var invalid = new ReactiveResilience4JCircuitBreakerFactory();
+    new GatewayWebClientConfig().gatewayCircuitBreakers(breakerEnv).customize(invalid);
+    assertThatThrownBy(() -> invalid.create("savingAccounts")).isInstanceOf(IllegalStateException.class);
+  }
+}
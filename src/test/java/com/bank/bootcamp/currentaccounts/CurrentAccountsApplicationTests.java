@@ -1,62 +1,34 @@
 package com.bank.bootcamp.currentaccounts;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
-import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.modelmapper.ModelMapper;
-import org.springframework.core.env.Environment;
-import com.bank.bootcamp.currentaccounts.dto.AccountType;
 import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
 import com.bank.bootcamp.currentaccounts.dto.CreateAccountDTO;
 import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
-import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
 import com.bank.bootcamp.currentaccounts.entity.Account;
 import com.bank.bootcamp.currentaccounts.entity.CustomerType;
 import com.bank.bootcamp.currentaccounts.entity.Transaction;
 import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
-import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
-import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
-import com.bank.bootcamp.currentaccounts.service.AccountService;
-import com.bank.bootcamp.currentaccounts.service.NextSequenceService;
-import com.bank.bootcamp.currentaccounts.webclient.AccountWebClient;
-import com.bank.bootcamp.currentaccounts.webclient.CreditWebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
-public class CurrentAccountsApplicationTests {
+public class CurrentAccountsApplicationTests extends AccountServiceTestSupport {
 
-  private static AccountService accountService;
-  private static AccountRepository accountRepository;
-  private static TransactionRepository transactionRepository;
-  private static NextSequenceService nextSequenceService;
-  private static Environment env;
   private ModelMapper mapper = new ModelMapper();
-  private static CreditWebClient creditWebClient;
-  private static AccountWebClient accountWebClient;
-  
-  @BeforeAll
-  public static void setup() {
-    accountRepository = mock(AccountRepository.class);
-    transactionRepository = mock(TransactionRepository.class);
-    nextSequenceService = mock(NextSequenceService.class);
-    env = mock(Environment.class);
-    creditWebClient = mock(CreditWebClient.class);
-    accountWebClient = mock(AccountWebClient.class);
-    accountService = new AccountService(accountRepository, transactionRepository, nextSequenceService, env, creditWebClient, accountWebClient);
-  }
   
   private Account getPersonalAccount() {
     var account = new Account();
     account.setCustomerId("id123456");
     account.setCustomerType(CustomerType.PERSONAL);
-    account.setMaintenanceFee(5d);
+    account.setMaintenanceFee(500L);
     return account;
   }
   
@@ -64,16 +36,16 @@ public class CurrentAccountsApplicationTests {
     var account = new Account();
     account.setCustomerId("bb123456");
     account.setCustomerType(CustomerType.BUSINESS);
-    account.setMaintenanceFee(5d);
+    account.setMaintenanceFee(500L);
     return account;
   }
-
+  
   @Test
   public void createTwoPersonalAccountWithAllData() throws Exception {
     
     var personalAccount = getPersonalAccount();
     var personalAccountDTO = mapper.map(personalAccount, CreateAccountDTO.class);
-    personalAccountDTO.setOpeningAmount(100d);
+    personalAccountDTO.setOpeningAmount(new BigDecimal("100"));
     
     var savedPersonalAccount = mapper.map(personalAccount, Account.class);
     savedPersonalAccount.setId(UUID.randomUUID().toString());
@@ -106,7 +78,7 @@ public class CurrentAccountsApplicationTests {
     
     var businessAccount = getBusinessAccount();
     var businessAccountDTO = mapper.map(businessAccount, CreateAccountDTO.class);
-    businessAccountDTO.setOpeningAmount(100d);
+    businessAccountDTO.setOpeningAmount(new BigDecimal("100"));
     
     var savedBusinessAccount = mapper.map(businessAccount, Account.class);
     savedBusinessAccount.setId(UUID.randomUUID().toString());
@@ -122,7 +94,7 @@ public class CurrentAccountsApplicationTests {
     
     var businessAccount2 = getBusinessAccount();
     var businessAccount2DTO = mapper.map(businessAccount2, CreateAccountDTO.class);
-    businessAccount2DTO.setOpeningAmount(100d);
+    businessAccount2DTO.setOpeningAmount(new BigDecimal("100"));
     
     var savedBusinessAccount2 = mapper.map(businessAccount2, Account.class);
     savedBusinessAccount2.setId(UUID.randomUUID().toString());
@@ -137,13 +109,12 @@ public class CurrentAccountsApplicationTests {
     
   }
   
-  
   @Test
   public void createBusinessAccountWithPYMEProfile() throws Exception {
     
     var businessAccount = getBusinessAccount();
     var businessAccountDTO = mapper.map(businessAccount, CreateAccountDTO.class);
-    businessAccountDTO.setOpeningAmount(100d);
+    businessAccountDTO.setOpeningAmount(new BigDecimal("100"));
     businessAccountDTO.setProfile("PYME");
     
     var savedBusinessAccount = mapper.map(businessAccount, Account.class);
@@ -166,7 +137,7 @@ public class CurrentAccountsApplicationTests {
     
     var businessAccount = getBusinessAccount();
     var businessAccountDTO = mapper.map(businessAccount, CreateAccountDTO.class);
-    businessAccountDTO.setOpeningAmount(100d);
+    businessAccountDTO.setOpeningAmount(new BigDecimal("100"));
     businessAccountDTO.setProfile("PYME");
     
     var savedBusinessAccount = mapper.map(businessAccount, Account.class);
@@ -187,11 +158,11 @@ public class CurrentAccountsApplicationTests {
     
     var account = new Account();
     account.setId(accountId);
-    account.setMaintenanceFee(5d);
+    account.setMaintenanceFee(500L);
     
     var createTransactionDTO = new CreateTransactionDTO();
     createTransactionDTO.setAgent("BCP Huacho - Cajero 021");
-    createTransactionDTO.setAmount(100d);
+    createTransactionDTO.setAmount(new BigDecimal("100"));
     createTransactionDTO.setAccountId(accountId);
     createTransactionDTO.setDescription("Deposito cajero");
     
@@ -201,7 +172,7 @@ public class CurrentAccountsApplicationTests {
     transactionSaved.setRegisterDate(LocalDateTime.now());
     
     when(nextSequenceService.getNextSequence("TransactionSequences")).thenReturn(Mono.just(1));
-    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(0d));
+    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(0L));
     when(accountRepository.findById(accountId)).thenReturn(Mono.just(account));
     Mockito.doReturn(Flux.empty()).when(transactionRepository).findByAccountIdAndRegisterDateBetween(Mockito.anyString(), Mockito.any(LocalDateTime.class), Mockito.any(LocalDateTime.class));
     Mockito.doReturn(Mono.just(transactionSaved)).when(transactionRepository).save(Mockito.any());
@@ -210,6 +181,7 @@ public class CurrentAccountsApplicationTests {
     StepVerifier.create(mono).assertNext((saved) -> {
       assertThat(saved).isNotNull();
     }).verifyComplete();
+    Mockito.verify(accountBalanceService).reserve(accountId, 10_000L);
   }
   
   @Test
@@ -217,7 +189,7 @@ public class CurrentAccountsApplicationTests {
     var accountId = "acc123";
     var createTransactionDTO = new CreateTransactionDTO();
     createTransactionDTO.setAgent("BCP Huacho - Cajero 021");
-    createTransactionDTO.setAmount(-100d); // negative tx with balance 0
+    createTransactionDTO.setAmount(new BigDecimal("-100")); // negative tx with balance 0
     createTransactionDTO.setAccountId(accountId);
     createTransactionDTO.setDescription("Deposito cajero");
     
@@ -227,7 +199,7 @@ public class CurrentAccountsApplicationTests {
     transactionSaved.setRegisterDate(LocalDateTime.now());
     
     when(nextSequenceService.getNextSequence("TransactionSequences")).thenReturn(Mono.just(1));
-    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(0d));
+    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(0L));
     when(accountRepository.findById(accountId)).thenReturn(Mono.just(new Account()));
     Mockito.doReturn(Mono.just(transactionSaved)).when(transactionRepository).save(Mockito.any());
     
@@ -240,7 +212,7 @@ public class CurrentAccountsApplicationTests {
     var accountId = "acc123";
     var createTransactionDTO = new CreateTransactionDTO();
     createTransactionDTO.setAgent("BCP Huacho - Cajero 021");
-    createTransactionDTO.setAmount(100d);
+    createTransactionDTO.setAmount(new BigDecimal("100"));
     createTransactionDTO.setAccountId(accountId);
     createTransactionDTO.setDescription("Deposito cajero");
     
@@ -250,7 +222,7 @@ public class CurrentAccountsApplicationTests {
     transactionSaved.setRegisterDate(LocalDateTime.now());
     
     when(nextSequenceService.getNextSequence("TransactionSequences")).thenReturn(Mono.just(1));
-    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(0d));
+    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(0L));
     when(accountRepository.findById(accountId)).thenReturn(Mono.empty()); // inexistent account
     Mockito.doReturn(Mono.just(transactionSaved)).when(transactionRepository).save(Mockito.any());
     
@@ -263,16 +235,16 @@ public class CurrentAccountsApplicationTests {
     var accountId = "account_123";
     var account = new Account();
     account.setId(accountId);
-    account.setMaintenanceFee(5d);
+    account.setMaintenanceFee(500L);
+    account.setBalance(10_000L);
     
-    when(transactionRepository.getBalanceByAccountId(accountId)).thenReturn(Mono.just(100d));
     when(accountRepository.findById(accountId)).thenReturn(Mono.just(account));
     var transaction = new Transaction();
-    transaction.setAmount(100d);
+    transaction.setAmount(10_000L);
     when(transactionRepository.findByAccountIdAndRegisterDateBetween(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Flux.just(transaction));
     var mono = accountService.getBalanceByAccountId(accountId);
     StepVerifier.create(mono).assertNext(balance -> {
-      assertThat(balance.getAmount()).isEqualTo(100d);
+      assertThat(balance.getAmount()).isEqualTo(new BigDecimal("100.00"));
     }).verifyComplete();
   }
   
@@ -288,47 +260,13 @@ public class CurrentAccountsApplicationTests {
     }).verifyComplete();
   }
   
-  @Test
-  public void transfer() {
-    var transferDTO = new TransferDTO();
-    transferDTO.setAmount(100d);
-    transferDTO.setSourceAccountId("CA-001");
-    transferDTO.setTargetAccountType(AccountType.SAVING);
-    transferDTO.setTargetAccountId("SA-001");
-    var amount = 100d;
-    //  /transfer
-    when(nextSequenceService.getNextSequence("TransactionSequences")).thenReturn(Mono.just(1));
-    when(transactionRepository.getBalanceByAccountId(transferDTO.getSourceAccountId())).thenReturn(Mono.just(amount));
-    when(accountRepository.findById(transferDTO.getSourceAccountId())).thenReturn(Mono.just(new Account()));
-    
-    var existentTransaction = new Transaction();
-    existentTransaction.setAmount(100d);
-    
-    when(transactionRepository.findByAccountIdAndRegisterDateBetween(Mockito.anyString(), Mockito.any(LocalDateTime.class), Mockito.any(LocalDateTime.class))).thenReturn(Flux.just(existentTransaction));
-    
-    var tx = new Transaction();
-    tx.setAccountId(transferDTO.getSourceAccountId());
-    tx.setAgent("-");
-    tx.setOperationNumber(1);
-    tx.setAmount(amount);
-    tx.setId(UUID.randomUUID().toString());
-    tx.setRegisterDate(LocalDateTime.now());
-    
-    when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(Mono.just(tx));
-    when(accountWebClient.createTransaction(Mockito.any(AccountType.class), Mockito.any(CreateTransactionDTO.class))).thenReturn(Mono.just(4));
-    var mono = accountService.transfer(transferDTO);
-    StepVerifier.create(mono).assertNext(operationNumber -> {
-      assertThat(operationNumber).isNotNull();
-    }).verifyComplete();
-  }
-  
   @Test
   public void clienteSiPuedeAdquirirProducto() {
     //Un cliente no podrá adquirir un producto si posee alguna deuda vencida en algún producto de crédito.
     
     var personalAccount = getPersonalAccount();
     var personalAccountDTO = mapper.map(personalAccount, CreateAccountDTO.class);
-    personalAccountDTO.setOpeningAmount(100d);
+    personalAccountDTO.setOpeningAmount(new BigDecimal("100"));
     
     var savedPersonalAccount = mapper.map(personalAccount, Account.class);
     savedPersonalAccount.setId(UUID.randomUUID().toString());
@@ -349,14 +287,13 @@ public class CurrentAccountsApplicationTests {
     
   }
   
-  
   @Test
   public void clienteNoPuedeAdquirirProducto() {
     //Un cliente no podrá adquirir un producto si posee alguna deuda vencida en algún producto de crédito.
     
     var personalAccount = getPersonalAccount();
     var personalAccountDTO = mapper.map(personalAccount, CreateAccountDTO.class);
-    personalAccountDTO.setOpeningAmount(100d);
+    personalAccountDTO.setOpeningAmount(new BigDecimal("100"));
     
     var savedPersonalAccount = mapper.map(personalAccount, Account.class);
     savedPersonalAccount.setId(UUID.randomUUID().toString());
@@ -374,5 +311,4 @@ public class CurrentAccountsApplicationTests {
 
     
   }
-  
 }
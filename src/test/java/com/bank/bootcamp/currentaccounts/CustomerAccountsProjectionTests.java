@@ -0,0 +1,105 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerAccounts;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.entity.MonthlyMovementCounter;
+import com.bank.bootcamp.currentaccounts.service.CustomerAccountsProjection;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class CustomerAccountsProjectionTests extends AccountServiceTestSupport {
+
+  @Test
+  public void customerQueriesAreServedFromTheProjection() throws InterruptedException {
+    var account = Fixtures.account("PJ-A", 10_000L);
+    account.setCustomerId("PJ-1");
+    account.setCustomerType(CustomerType.PERSONAL);
+    account.setMaintenanceFee(500L);
+    account.setVersion(3L);
+    when(accountRepository.findByCustomerIdAndCustomerType("PJ-1", CustomerType.PERSONAL)).thenReturn(Flux.just(account));
+    
+    var accountChanges = Sinks.many().multicast().<ChangeStreamEvent<Account>>directBestEffort();
+    var stored = new AtomicReference<CustomerAccounts>();
+    var projectionTemplate = mock(ReactiveMongoTemplate.class);
+    when(projectionTemplate.getCollectionName(Mockito.any())).thenReturn("collection");
+    when(projectionTemplate.changeStream(Mockito.anyString(), Mockito.any(ChangeStreamOptions.class), Mockito.eq(Account.class))).thenReturn(accountChanges.asFlux());
+    when(projectionTemplate.changeStream(Mockito.anyString(), Mockito.any(ChangeStreamOptions.class), Mockito.eq(MonthlyMovementCounter.class))).thenReturn(Flux.never());
+    when(projectionTemplate.findById("PERSONAL-PJ-1", CustomerAccounts.class)).thenAnswer(inv -> Mono.justOrEmpty(stored.get()));
+    when(projectionTemplate.insert(Mockito.any(CustomerAccounts.class))).thenAnswer(inv -> {
+      stored.set(inv.getArgument(0));
+      return Mono.just(stored.get());
+    });
+    when(projectionTemplate.updateFirst(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.eq(CustomerAccounts.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+    var projectionRegistry = new SimpleMeterRegistry();
+    var projection = new CustomerAccountsProjection(projectionTemplate, accountService, accountBalanceService, movementCounterService, env, projectionRegistry);
+    projection.start();
+    
+    StepVerifier.create(projection.getBalances("PJ-1", CustomerType.PERSONAL).map(BalanceDTO::getAmount)).expectNext(new BigDecimal("100.00")).verifyComplete();
+    StepVerifier.create(projection.getAccounts("PJ-1", CustomerType.PERSONAL).map(Account::getId)).expectNext("PJ-A").verifyComplete();
+    // La primera lectura construye el documento; las siguientes son un solo findById
+    Mockito.verify(projectionTemplate, Mockito.times(1)).insert(Mockito.any(CustomerAccounts.class));
+    Mockito.verify(accountRepository, Mockito.times(2)).findByCustomerIdAndCustomerType("PJ-1", CustomerType.PERSONAL);
+    
+    // Un cambio de saldo solo se aplica sobre una versión igual o anterior de la cuenta
+    var update = ArgumentCaptor.forClass(UpdateDefinition.class);
+    Mockito.clearInvocations(projectionTemplate);
+    account.setBalance(8_000L);
+    account.setVersion(4L);
+    StepVerifier.create(projection.applyAccount(account)).verifyComplete();
+    Mockito.verify(projectionTemplate).updateFirst(Mockito.any(Query.class), update.capture(), Mockito.eq(CustomerAccounts.class));
+    assertThat(update.getValue().getUpdateObject().get("$set", Document.class)).containsEntry("accounts.$[a].balance", 8_000L);
+    assertThat(update.getValue().getArrayFilters()).hasSize(1);
+    assertThat(update.getValue().getArrayFilters().get(0).asDocument().toJson()).contains("PJ-A").contains("$lte");
+    
+    // Un cambio que no se puede aplicar borra la vista del cliente para que se reconstruya
+    when(projectionTemplate.updateFirst(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.eq(CustomerAccounts.class)))
+      .thenReturn(Mono.error(new IllegalStateException("write conflict")));
+    when(projectionTemplate.remove(Mockito.any(Query.class), Mockito.eq(CustomerAccounts.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+    @SuppressWarnings("unchecked")
+    ChangeStreamEvent<Account> failing = mock(ChangeStreamEvent.class);
+    when(failing.getOperationType()).thenReturn(OperationType.UPDATE);
+    when(failing.getBody()).thenReturn(account);
+    accountChanges.tryEmitNext(failing);
+    var invalidated = ArgumentCaptor.forClass(Query.class);
+    Mockito.verify(projectionTemplate, Mockito.timeout(5_000)).remove(invalidated.capture(), Mockito.eq(CustomerAccounts.class));
+    assertThat(invalidated.getValue().getQueryObject().toJson()).contains("PJ-A").contains("PERSONAL-PJ-1");
+    assertThat(projectionRegistry.get("bank.projection.dropped").counter().count()).isEqualTo(1d);
+    
+    // Con el stream caído la proyección se atrasa: se expone el retraso y las lecturas van al origen
+    when(env.getProperty("account.projection.max-staleness-millis")).thenReturn("0");
+    try {
+      accountChanges.tryEmitError(new IllegalStateException("not a replica set"));
+      Thread.sleep(20);
+      assertThat(projectionRegistry.get("bank.projection.staleness").timeGauge().value(TimeUnit.MILLISECONDS)).isGreaterThan(0d);
+      StepVerifier.create(projection.getBalances("PJ-1", CustomerType.PERSONAL).map(BalanceDTO::getAmount)).expectNext(new BigDecimal("80.00")).verifyComplete();
+      Mockito.verify(projectionTemplate, Mockito.never()).findById("PERSONAL-PJ-1", CustomerAccounts.class);
+    } finally {
+      when(env.getProperty("account.projection.max-staleness-millis")).thenReturn(null);
+      projection.stop();
+    }
+  }
+}
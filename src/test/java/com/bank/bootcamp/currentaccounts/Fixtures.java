@@ -0,0 +1,28 @@
+package com.bank.bootcamp.currentaccounts;
+
+import java.math.BigDecimal;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+
+// Datos de prueba que se repiten entre las clases de pruebas
+public final class Fixtures {
+
+  private Fixtures() {
+  }
+  
+  public static Account account(String id, Long balance) {
+    var account = new Account();
+    account.setId(id);
+    account.setBalance(balance);
+    return account;
+  }
+  
+  public static CreateTransactionDTO transactionDTO(String accountId, String agent, BigDecimal amount, String description) {
+    var dto = new CreateTransactionDTO();
+    dto.setAccountId(accountId);
+    dto.setAgent(agent);
+    dto.setAmount(amount);
+    dto.setDescription(description);
+    return dto;
+  }
+}
@@ -0,0 +1,113 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.entity.IdempotencyRecord;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.repository.IdempotencyRepository;
+import com.bank.bootcamp.currentaccounts.service.IdempotencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class IdempotencyServiceTests {
+
+  private final Environment env = mock(Environment.class);
+  
+  @Test
+  public void idempotencyKeyExecutesOnceAndReplaysResult() {
+    var records = new ConcurrentHashMap<String, IdempotencyRecord>();
+    var idempotencyRepository = mock(IdempotencyRepository.class);
+    when(idempotencyRepository.insert(Mockito.any(IdempotencyRecord.class))).thenAnswer(inv -> {
+      var record = inv.<IdempotencyRecord>getArgument(0);
+      return records.putIfAbsent(record.getId(), record) == null ? Mono.just(record) : Mono.error(new DuplicateKeyException(record.getId()));
+    });
+    when(idempotencyRepository.save(Mockito.any(IdempotencyRecord.class))).thenAnswer(inv -> {
+      var record = inv.<IdempotencyRecord>getArgument(0);
+      records.put(record.getId(), record);
+      return Mono.just(record);
+    });
+    when(idempotencyRepository.findById(Mockito.anyString())).thenAnswer(inv -> Mono.justOrEmpty(records.get(inv.<String>getArgument(0))));
+    when(idempotencyRepository.deleteById(Mockito.anyString())).thenAnswer(inv -> Mono.fromRunnable(() -> records.remove(inv.<String>getArgument(0))));
+    when(idempotencyRepository.deleteByIdAndCompletedFalseAndLeaseUntilBefore(Mockito.anyString(), Mockito.any())).thenAnswer(inv -> Mono.just(
+        records.computeIfPresent(inv.<String>getArgument(0), (id, record) -> !record.getCompleted() && record.getLeaseUntil().isBefore(inv.getArgument(1)) ? null : record) == null ? 1L : 0L));
+    
+    var dto = Fixtures.transactionDTO("ACC-IDEM", "Agente", new BigDecimal("10"), "Deposito");
+    var executions = new AtomicInteger();
+    Supplier<Mono<Integer>> action = () -> Mono.fromSupplier(executions::incrementAndGet).delayElement(Duration.ofMillis(100));
+    
+    // Reintentos concurrentes en la misma instancia: una sola ejecución
+    var service = new IdempotencyService(idempotencyRepository, env, new SimpleMeterRegistry());
+    var results = Flux.range(0, 20).flatMap(i -> service.execute("transaction", "K-1", dto, action)).collectList().block();
+    assertThat(results).hasSize(20).containsOnly(1);
+    assertThat(executions.get()).isEqualTo(1);
+    
+    // Otra instancia (cache local vacía) responde desde la colección
+    var otherInstance = new IdempotencyService(idempotencyRepository, env, new SimpleMeterRegistry());
+    assertThat(otherInstance.execute("transaction", "K-1", dto, action).block()).isEqualTo(1);
+    assertThat(executions.get()).isEqualTo(1);
+    
+    // El mismo importe con otra escala es la misma solicitud
+    var sameAmount = Fixtures.transactionDTO("ACC-IDEM", "Agente", new BigDecimal("10.00"), "Deposito");
+    assertThat(otherInstance.execute("transaction", "K-1", sameAmount, action).block()).isEqualTo(1);
+    assertThat(executions.get()).isEqualTo(1);
+    
+    // La misma clave con otros datos se rechaza
+    var otherDTO = new CreateTransactionDTO();
+    otherDTO.setAccountId("ACC-IDEM");
+    otherDTO.setAmount(new BigDecimal("99"));
+    StepVerifier.create(otherInstance.execute("transaction", "K-1", otherDTO, action))
+      .expectErrorMessage("Idempotency-Key already used with a different request")
+      .verify();
+    
+    // Si la operación falla no queda registrada y el reintento vuelve a ejecutarla
+    StepVerifier.create(service.execute("transaction", "K-2", dto, () -> Mono.<Integer>error(new BankValidationException("Insuficient balance"))))
+      .expectErrorMessage("Insuficient balance")
+      .verify();
+    assertThat(records).doesNotContainKey("transaction:K-2");
+    assertThat(service.execute("transaction", "K-2", dto, action).block()).isEqualTo(2);
+    
+    // Sin clave no hay deduplicación
+    assertThat(service.execute("transaction", null, dto, action).block()).isEqualTo(3);
+    
+    // La instancia que la ejecutaba se cayó: vencido su lease, otra solicitud la retoma
+    when(env.getProperty("idempotency.lease-millis")).thenReturn("50");
+    var crashed = new IdempotencyService(idempotencyRepository, env, new SimpleMeterRegistry());
+    when(env.getProperty("idempotency.lease-millis")).thenReturn(null);
+    crashed.execute("transaction", "K-3", dto, () -> Mono.<Integer>never()).subscribe();
+    assertThat(records.get("transaction:K-3").getCompleted()).isFalse();
+    assertThat(otherInstance.execute("transaction", "K-3", dto, action).block()).isEqualTo(4);
+    assertThat(records.get("transaction:K-3").getCompleted()).isTrue();
+    
+    // Ejecutada pero sin poder guardar el resultado: responde con él y la clave queda bloqueada, nadie la repite
+    when(env.getProperty("idempotency.wait-millis")).thenReturn("200");
+    when(env.getProperty("idempotency.poll-millis")).thenReturn("10");
+    var unsaved = new IdempotencyService(idempotencyRepository, env, new SimpleMeterRegistry());
+    var waiting = new IdempotencyService(idempotencyRepository, env, new SimpleMeterRegistry());
+    when(env.getProperty("idempotency.wait-millis")).thenReturn(null);
+    when(env.getProperty("idempotency.poll-millis")).thenReturn(null);
+    Mockito.doAnswer(inv -> Boolean.TRUE.equals(inv.<IdempotencyRecord>getArgument(0).getCompleted())
+        ? Mono.error(new IllegalStateException("write failed"))
+        : Mono.fromSupplier(() -> records.put(inv.<IdempotencyRecord>getArgument(0).getId(), inv.getArgument(0))).thenReturn(inv.getArgument(0)))
+      .when(idempotencyRepository).save(Mockito.any(IdempotencyRecord.class));
+    assertThat(unsaved.execute("transaction", "K-4", dto, action).block()).isEqualTo(5);
+    assertThat(records.get("transaction:K-4").getCompleted()).isFalse();
+    assertThat(records.get("transaction:K-4").getLeaseUntil()).isNull();
+    StepVerifier.create(waiting.execute("transaction", "K-4", dto, action))
+      .expectErrorMessage("A request with the same Idempotency-Key is still in progress")
+      .verify();
+    assertThat(executions.get()).isEqualTo(5);
+  }
+}
@@ -0,0 +1,88 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import com.bank.bootcamp.currentaccounts.dto.MovementTotals;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.job.LedgerClosingJob;
+import com.bank.bootcamp.currentaccounts.repository.LedgerSnapshotRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.LedgerSnapshotService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class LedgerSnapshotServiceTests {
+
+  private final Environment env = mock(Environment.class);
+  
+  @Test
+  public void ledgerClosingIsIncrementalAndBoundsHistoricalBalances() {
+    var snapshots = new ConcurrentHashMap<String, LedgerSnapshot>();
+    var snapshotRepository = mock(LedgerSnapshotRepository.class);
+    when(snapshotRepository.save(Mockito.any(LedgerSnapshot.class))).thenAnswer(inv -> {
+      var snapshot = inv.<LedgerSnapshot>getArgument(0);
+      snapshots.put(snapshot.getId(), snapshot);
+      return Mono.just(snapshot);
+    });
+    when(snapshotRepository.findById(Mockito.anyString())).thenAnswer(inv -> Mono.justOrEmpty(snapshots.get(inv.<String>getArgument(0))));
+    when(snapshotRepository.findAllById(Mockito.<Iterable<String>>any())).thenAnswer(inv -> Flux.fromIterable(inv.<Iterable<String>>getArgument(0))
+        .flatMap(id -> Mono.justOrEmpty(snapshots.get(id))));
+    when(snapshotRepository.findFirstByAccountIdAndPeriodLessThanOrderByPeriodDesc(Mockito.anyString(), Mockito.anyString())).thenAnswer(inv -> Mono.justOrEmpty(snapshots.values().stream()
+        .filter(snapshot -> snapshot.getAccountId().equals(inv.getArgument(0)) && snapshot.getPeriod().compareTo(inv.getArgument(1)) < 0)
+        .max(Comparator.comparing(LedgerSnapshot::getPeriod))));
+    
+    var ledgerRepository = mock(TransactionRepository.class);
+    when(ledgerRepository.getTotalsByAccountIdAndRegisterDateBefore("L-1", LocalDateTime.of(2022, 4, 1, 0, 0))).thenReturn(Mono.just(totals(10_000L, 3L)));
+    when(ledgerRepository.getTotalsByAccountIdAndRegisterDateBetween("L-1", LocalDateTime.of(2022, 4, 1, 0, 0), LocalDateTime.of(2022, 5, 1, 0, 0))).thenReturn(Mono.just(totals(5_000L, 2L)));
+    when(ledgerRepository.getTotalsByAccountIdAndRegisterDateBetween("L-1", LocalDateTime.of(2022, 5, 1, 0, 0), LocalDateTime.of(2022, 5, 11, 0, 0))).thenReturn(Mono.just(totals(-2_000L, 1L)));
+    var snapshotService = new LedgerSnapshotService(snapshotRepository, ledgerRepository);
+    
+    // L-2 ya estaba cerrada (ejecución anterior interrumpida): no se vuelve a calcular
+    var alreadyClosed = new LedgerSnapshot();
+    alreadyClosed.setId(LedgerSnapshotService.snapshotId("L-2", YearMonth.of(2022, 4)));
+    alreadyClosed.setAccountId("L-2");
+    alreadyClosed.setPeriod("2022-04");
+    alreadyClosed.setClosingBalance(1_000L);
+    snapshots.put(alreadyClosed.getId(), alreadyClosed);
+    
+    var closingTemplate = mock(ReactiveMongoTemplate.class);
+    var first = new Account();
+    first.setId("L-1");
+    var second = new Account();
+    second.setId("L-2");
+    when(closingTemplate.find(Mockito.any(Query.class), Mockito.eq(Account.class))).thenReturn(Flux.just(first, second));
+    var job = new LedgerClosingJob(closingTemplate, snapshotRepository, snapshotService, env);
+    
+    StepVerifier.create(job.close(YearMonth.of(2022, 4))).assertNext(snapshot -> {
+      assertThat(snapshot.getAccountId()).isEqualTo("L-1");
+      assertThat(snapshot.getClosingBalance()).isEqualTo(15_000L);
+      assertThat(snapshot.getMovementCount()).isEqualTo(2L);
+    }).verifyComplete();
+    Mockito.verify(ledgerRepository, Mockito.never()).getTotalsByAccountIdAndRegisterDateBefore(Mockito.eq("L-2"), Mockito.any());
+    StepVerifier.create(job.close(YearMonth.of(2022, 4))).verifyComplete();
+    
+    // Saldo histórico: cierre de abril más los movimientos de mayo hasta el día pedido
+    StepVerifier.create(snapshotService.getBalanceAsOf("L-1", LocalDate.of(2022, 5, 10))).expectNext(13_000L).verifyComplete();
+    Mockito.verify(ledgerRepository, Mockito.times(1)).getTotalsByAccountIdAndRegisterDateBefore(Mockito.any(), Mockito.any());
+  }
+  
+  private MovementTotals totals(Long total, Long count) {
+    var totals = new MovementTotals();
+    totals.setTotal(total);
+    totals.setCount(count);
+    return totals;
+  }
+}
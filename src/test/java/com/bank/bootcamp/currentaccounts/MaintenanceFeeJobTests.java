@@ -0,0 +1,170 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.MaintenanceFeeRejection;
+import com.bank.bootcamp.currentaccounts.entity.MaintenanceFeeRun;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.job.MaintenanceFeeJob;
+import com.bank.bootcamp.currentaccounts.repository.AccountRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountBalanceService;
+import com.bank.bootcamp.currentaccounts.service.BulkTransactionService;
+import com.bank.bootcamp.currentaccounts.service.MovementCounterService;
+import com.bank.bootcamp.currentaccounts.service.NextSequenceService;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class MaintenanceFeeJobTests extends AccountServiceTestSupport {
+
+  @Test
+  public void maintenanceFeeResumesFromCheckpointAndChargesOncePerMonth() {
+    // Ejecución anterior interrumpida después de confirmar F-0
+    var runs = new ConcurrentHashMap<String, MaintenanceFeeRun>();
+    var interrupted = new MaintenanceFeeRun();
+    interrupted.setId("2022-04");
+    interrupted.setLastAccountId("F-0");
+    interrupted.setCharged(1L);
+    interrupted.setRejected(0L);
+    interrupted.setLeaseId("crashed");
+    interrupted.setLeaseUntil(LocalDateTime.now().minusMinutes(1));
+    runs.put(interrupted.getId(), interrupted);
+    
+    var feeTemplate = mock(ReactiveMongoTemplate.class);
+    BiFunction<MaintenanceFeeRun, Document, MaintenanceFeeRun> apply = (run, update) -> {
+      var changes = new BeanWrapperImpl(run);
+      ((Document) update.get("$set")).forEach(changes::setPropertyValue);
+      Optional.ofNullable((Document) update.get("$inc")).ifPresent(inc -> inc.forEach((field, value) ->
+          changes.setPropertyValue(field, (Long) changes.getPropertyValue(field) + ((Number) value).longValue())));
+      var copy = new MaintenanceFeeRun();
+      BeanUtils.copyProperties(run, copy);
+      return copy;
+    };
+    when(feeTemplate.findAndModify(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(MaintenanceFeeRun.class))).thenAnswer(inv -> {
+      var query = inv.<Query>getArgument(0).getQueryObject();
+      var update = inv.<UpdateDefinition>getArgument(1).getUpdateObject();
+      var existing = runs.get((String) query.get("_id"));
+      if (query.containsKey("leaseId")) {
+        if (existing == null || !Objects.equals(existing.getLeaseId(), query.get("leaseId")))
+          return Mono.empty();
+      } else if (query.get("completed") instanceof Boolean && (existing == null || !Objects.equals(existing.getCompleted(), query.get("completed")))) {
+        return Mono.empty();
+      } else if (update.containsKey("$setOnInsert") && existing != null && (Boolean.TRUE.equals(existing.getCompleted()) || existing.getLeaseUntil().isAfter(LocalDateTime.now()))) {
+        return Mono.error(new DuplicateKeyException("MaintenanceFeeRuns"));
+      }
+      return Mono.just(apply.apply(Optional.ofNullable(existing).orElseGet(MaintenanceFeeRun::new), update));
+    });
+    when(feeTemplate.updateFirst(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.eq(MaintenanceFeeRun.class))).thenAnswer(inv -> {
+      apply.apply(runs.get((String) inv.<Query>getArgument(0).getQueryObject().get("_id")), inv.<UpdateDefinition>getArgument(1).getUpdateObject());
+      return Mono.just(UpdateResult.acknowledged(1, 1L, null));
+    });
+    when(feeTemplate.findById("2022-04", MaintenanceFeeRun.class)).thenAnswer(inv -> Mono.justOrEmpty(runs.get("2022-04")));
+    // Un documento por cuota rechazada
+    var rejections = new ConcurrentHashMap<String, MaintenanceFeeRejection>();
+    when(feeTemplate.save(Mockito.any(MaintenanceFeeRejection.class))).thenAnswer(inv -> {
+      var rejection = inv.<MaintenanceFeeRejection>getArgument(0);
+      rejections.put(rejection.getId(), rejection);
+      return Mono.just(rejection);
+    });
+    when(feeTemplate.count(Mockito.any(Query.class), Mockito.eq(MaintenanceFeeRejection.class))).thenAnswer(inv -> Mono.just((long) rejections.size()));
+    when(feeTemplate.find(Mockito.any(Query.class), Mockito.eq(MaintenanceFeeRejection.class))).thenAnswer(inv -> Flux.fromIterable(new ArrayList<>(rejections.values())));
+    when(feeTemplate.remove(Mockito.any(Query.class), Mockito.eq(MaintenanceFeeRejection.class))).thenAnswer(inv -> {
+      var ids = (List<?>) ((Document) inv.<Query>getArgument(0).getQueryObject().get("_id")).get("$in");
+      ids.forEach(rejections::remove);
+      return Mono.just(DeleteResult.acknowledged(ids.size()));
+    });
+    var accounts = new ArrayList<Account>();
+    for (var balance : List.of(10_000L, 10_000L, 200L)) {
+      var account = Fixtures.account("F-" + (accounts.size() + 1), balance);
+      account.setMaintenanceFee(500L);
+      accounts.add(account);
+    }
+    var accountsQuery = ArgumentCaptor.forClass(Query.class);
+    // Los reintentos buscan solo las cuentas rechazadas
+    when(feeTemplate.find(accountsQuery.capture(), Mockito.eq(Account.class))).thenAnswer(inv -> Flux.fromIterable(accounts)
+        .filter(account -> Optional.ofNullable(inv.<Query>getArgument(0).getQueryObject().get("_id"))
+            .filter(Document.class::isInstance).map(id -> ((List<?>) ((Document) id).get("$in")))
+            .map(ids -> ids.contains(account.getId())).orElse(true)));
+    // F-2 ya tiene la cuota del mes
+    var charged = new Transaction();
+    charged.setAccountId("F-2");
+    when(feeTemplate.find(Mockito.any(Query.class), Mockito.eq(Transaction.class))).thenReturn(Flux.just(charged));
+    
+    var feeAccountRepository = mock(AccountRepository.class);
+    var feeTransactionRepository = mock(TransactionRepository.class);
+    var feeSequenceService = mock(NextSequenceService.class);
+    var feeBalanceService = mock(AccountBalanceService.class);
+    var feeCounterService = mock(MovementCounterService.class);
+    accounts.forEach(account -> {
+      when(feeAccountRepository.findById(account.getId())).thenReturn(Mono.just(account));
+      when(feeBalanceService.getBalance(account)).thenReturn(Mono.just(account.getBalance()));
+    });
+    when(feeBalanceService.reserve("F-1", -500L, 500L)).thenReturn(Mono.just(accounts.get(0)));
+    // Más de 99 movimientos en el mes: la cuota igual no genera comisión
+    when(feeCounterService.getCount(Mockito.any(), Mockito.any())).thenReturn(Mono.just(150L));
+    when(feeCounterService.increment(Mockito.any(), Mockito.any(), Mockito.anyLong())).thenReturn(Mono.just(151L));
+    when(feeSequenceService.getNextSequenceBlock("TransactionSequences", 1)).thenReturn(Mono.just(20));
+    var inserted = new ArrayList<Transaction>();
+    when(feeTransactionRepository.insert(Mockito.<Iterable<Transaction>>any())).thenAnswer(inv -> Flux.fromIterable(inv.<Iterable<Transaction>>getArgument(0))
+        .doOnNext(inserted::add));
+    var bulkService = new BulkTransactionService(feeAccountRepository, feeTransactionRepository, feeSequenceService,
+        feeBalanceService, feeCounterService, accountService, env);
+    var job = new MaintenanceFeeJob(feeTemplate, bulkService, env);
+    
+    // La ejecución interrumpida no se vuelve a disparar el día 1: el reintento diario la reanuda
+    StepVerifier.create(job.retry(YearMonth.of(2022, 4))).assertNext(run -> {
+      assertThat(run.getCompleted()).isTrue();
+      assertThat(run.getLastAccountId()).isEqualTo("F-3");
+      assertThat(run.getCharged()).isEqualTo(2L);
+      assertThat(run.getRejected()).isEqualTo(1L);
+      assertThat(run.getLeaseId()).isNull();
+    }).verifyComplete();
+    assertThat(accountsQuery.getAllValues().get(0).getQueryObject()).containsKey("_id");
+    assertThat(inserted).singleElement().satisfies(fee -> {
+      assertThat(fee.getAccountId()).isEqualTo("F-1");
+      assertThat(fee.getAmount()).isEqualTo(-500L);
+      assertThat(fee.getFeePeriod()).isEqualTo("2022-04");
+      assertThat(fee.getOperationNumber()).isEqualTo(20);
+    });
+    Mockito.verify(feeAccountRepository, Mockito.never()).findById("F-2");
+    
+    // El periodo ya terminado no se vuelve a cobrar
+    StepVerifier.create(job.bill(YearMonth.of(2022, 4))).verifyComplete();
+    
+    // F-3 quedó pendiente y se cobra cuando vuelve a tener saldo
+    assertThat(rejections).containsOnlyKeys(MaintenanceFeeJob.rejectionId("F-3", YearMonth.of(2022, 4)));
+    when(feeBalanceService.getBalance(accounts.get(2))).thenReturn(Mono.just(10_000L));
+    when(feeBalanceService.reserve("F-3", -500L, 500L)).thenReturn(Mono.just(accounts.get(2)));
+    when(feeSequenceService.getNextSequenceBlock("TransactionSequences", 1)).thenReturn(Mono.just(21));
+    StepVerifier.create(job.retry(YearMonth.of(2022, 4))).assertNext(run -> {
+      assertThat(run.getCharged()).isEqualTo(3L);
+      assertThat(run.getRejected()).isEqualTo(0L);
+    }).verifyComplete();
+    assertThat(rejections).isEmpty();
+    assertThat(inserted).extracting(Transaction::getAccountId).containsExactly("F-1", "F-3");
+  }
+}
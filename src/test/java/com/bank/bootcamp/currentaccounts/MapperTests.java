@@ -0,0 +1,49 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import com.bank.bootcamp.currentaccounts.dto.BalanceDTO;
+import com.bank.bootcamp.currentaccounts.dto.CreateAccountDTO;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+
+public class MapperTests {
+
+  private ModelMapper mapper = new ModelMapper();
+  
+  @Test
+  public void handWrittenMappersMatchModelMapper() {
+    var createTransactionDTO = Fixtures.transactionDTO("ACC-MAP", "Agente", new BigDecimal("15.5"), "Deposito");
+    createTransactionDTO.setCreateByComission(Boolean.TRUE);
+    var transaction = createTransactionDTO.toTransaction();
+    var mapped = mapper.map(createTransactionDTO, Transaction.class);
+    // El importe pasa a céntimos, algo que ModelMapper no hace
+    assertThat(transaction).usingRecursiveComparison().ignoringFields("id", "amount").isEqualTo(mapped);
+    assertThat(transaction.getAmount()).isEqualTo(1_550L);
+    // ModelMapper copiaba accountId como id, lo que hacía que cada save reemplazara el movimiento anterior
+    assertThat(mapped.getId()).isEqualTo("ACC-MAP");
+    assertThat(transaction.getId()).isNull();
+    
+    var createAccountDTO = new CreateAccountDTO();
+    createAccountDTO.setCustomerId("C-MAP");
+    createAccountDTO.setCustomerType(CustomerType.BUSINESS);
+    createAccountDTO.setMaintenanceFee(new BigDecimal("7"));
+    createAccountDTO.setOpeningAmount(new BigDecimal("100"));
+    createAccountDTO.setProfile("PYME");
+    assertThat(createAccountDTO.toAccount()).usingRecursiveComparison().ignoringFields("id", "maintenanceFee").isEqualTo(mapper.map(createAccountDTO, Account.class));
+    assertThat(createAccountDTO.toAccount().getMaintenanceFee()).isEqualTo(700L);
+    assertThat(createAccountDTO.toAccount().getId()).isNull();
+    
+    var account = Fixtures.account("ACC-MAP", 9_900L);
+    account.setMaintenanceFee(700L);
+    var balanceDTO = BalanceDTO.of(account, 4_200L);
+    assertThat(balanceDTO.getAccountId()).isEqualTo("ACC-MAP");
+    assertThat(balanceDTO.getMaintenanceFee()).isEqualTo(new BigDecimal("7.00"));
+    assertThat(balanceDTO.getType()).isEqualTo("Current Account");
+    assertThat(balanceDTO.getAmount()).isEqualTo(new BigDecimal("42.00"));
+    assertThat(balanceDTO.getAccountNumber()).isNull();
+  }
+}
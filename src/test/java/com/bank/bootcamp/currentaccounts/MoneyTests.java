@@ -0,0 +1,96 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.bank.bootcamp.currentaccounts.dto.Money;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerAccounts;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+import com.bank.bootcamp.currentaccounts.job.MoneyMigration;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class MoneyTests extends AccountServiceTestSupport {
+
+  @Test
+  public void amountsAreStoredAsExactMinorUnits() throws Exception {
+    // Comisión en céntimos, redondeada al céntimo
+    assertThat(AccountService.comissionFor(-1_000L)).isEqualTo(-1_005L);
+    assertThat(AccountService.comissionFor(333L)).isEqualTo(-335L);
+    assertThat(Flux.range(0, 10).map(i -> Money.toMinor(new BigDecimal("0.10"))).reduce(0L, Long::sum).block()).isEqualTo(100L);
+    
+    // En la API los importes siguen siendo decimales
+    var json = new ObjectMapper();
+    var entry = new CustomerAccounts.Entry();
+    entry.setBalance(1_050L);
+    assertThat(json.writeValueAsString(entry)).contains("\"balance\":10.50");
+    assertThat(json.readValue("{\"amount\": 10.5}", Transaction.class).getAmount()).isEqualTo(1_050L);
+    var createTransactionDTO = Fixtures.transactionDTO("ACC-MINOR", "Agente", new BigDecimal("10.505"), "Deposito");
+    StepVerifier.create(accountService.createTransaction(createTransactionDTO)).expectErrorMessage("Amount must have at most 2 decimals").verify();
+    
+    // Migración: solo los campos que siguen en double, convertidos en el servidor; la proyección se reconstruye
+    var migrationTemplate = mock(ReactiveMongoTemplate.class);
+    when(migrationTemplate.getCollectionName(Transaction.class)).thenReturn("Transactions");
+    when(migrationTemplate.getCollectionName(Account.class)).thenReturn("Accounts");
+    when(migrationTemplate.getCollectionName(LedgerSnapshot.class)).thenReturn("LedgerSnapshots");
+    when(migrationTemplate.getCollectionName(Transfer.class)).thenReturn("Transfers");
+    when(migrationTemplate.getCollectionNames()).thenReturn(Flux.just("Accounts", "Transactions", "Transactions_2021"));
+    when(migrationTemplate.updateMulti(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.anyString()))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(2, 2L, null)));
+    when(migrationTemplate.remove(Mockito.any(Query.class), Mockito.eq(CustomerAccounts.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+    StepVerifier.create(new MoneyMigration(migrationTemplate, env).migrate()).expectNext(13L).verifyComplete();
+    var filter = ArgumentCaptor.forClass(Query.class);
+    var update = ArgumentCaptor.forClass(UpdateDefinition.class);
+    var collection = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(migrationTemplate, Mockito.times(6)).updateMulti(filter.capture(), update.capture(), collection.capture());
+    assertThat(collection.getAllValues()).containsExactly("Transactions", "Accounts", "Accounts", "LedgerSnapshots", "Transfers", "Transactions_2021");
+    assertThat(filter.getValue().getQueryObject().toJson()).contains("\"$type\"");
+    assertThat(update.getValue().toString()).contains("$toLong").contains("$round").contains("$multiply");
+    
+    // Al terminar queda la marca y los arranques siguientes no vuelven a recorrer las colecciones
+    var marker = ArgumentCaptor.forClass(Document.class);
+    when(migrationTemplate.exists(Mockito.any(Query.class), Mockito.eq("Migrations"))).thenReturn(Mono.just(false));
+    when(migrationTemplate.save(marker.capture(), Mockito.eq("Migrations"))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+    StepVerifier.create(new MoneyMigration(migrationTemplate, env).run()).expectNext(13L).verifyComplete();
+    assertThat(marker.getValue()).containsEntry("_id", "money-minor-units").containsEntry("converted", 13L);
+    Mockito.clearInvocations(migrationTemplate);
+    when(migrationTemplate.exists(Mockito.any(Query.class), Mockito.eq("Migrations"))).thenReturn(Mono.just(true));
+    StepVerifier.create(new MoneyMigration(migrationTemplate, env).run()).expectNext(0L).verifyComplete();
+    Mockito.verify(migrationTemplate, Mockito.never()).updateMulti(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.anyString());
+  }
+  
+  @Test
+  public void accountJsonHidesInternalFields() throws Exception {
+    var account = Fixtures.account("ACC-JSON", 10_000L);
+    account.setMaintenanceFee(500L);
+    account.setVersion(3L);
+    var json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(account));
+    assertThat(json.has("balance")).isFalse();
+    assertThat(json.has("version")).isFalse();
+    assertThat(json.get("maintenanceFee").decimalValue()).isEqualByComparingTo("5");
+    
+    // En el resumen del cliente el saldo sí se muestra, la versión no
+    var entry = new CustomerAccounts.Entry();
+    entry.setBalance(10_000L);
+    entry.setVersion(3L);
+    var entryJson = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(entry));
+    assertThat(entryJson.get("balance").decimalValue()).isEqualByComparingTo("100");
+    assertThat(entryJson.has("version")).isFalse();
+  }
+}
@@ -0,0 +1,146 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.util.json.ParameterBindingDocumentCodec;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.CustomerType;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// mvn test -Pembedded-mongo
+// Las consultas con @Query y @Aggregation se leen del repositorio y se enlazan con sus parámetros, así el plan
+// corresponde a lo que ejecuta la aplicación
+@Tag("embedded-mongo")
+@DataMongoTest(properties = {
+    "spring.mongodb.embedded.version=5.0.5",
+    "spring.data.mongodb.auto-index-creation=true",
+    "spring.cloud.config.enabled=false"
+})
+public class MongoIndexExplainTests {
+
+  private static final LocalDateTime FROM = LocalDateTime.of(2022, 4, 1, 0, 0);
+  private static final LocalDateTime TO = LocalDateTime.of(2022, 5, 1, 0, 0);
+
+  @Autowired
+  private ReactiveMongoTemplate mongoTemplate;
+
+  private String accountId;
+
+  @BeforeEach
+  public void setup() {
+    mongoTemplate.remove(Transaction.class).all().block();
+    mongoTemplate.remove(Account.class).all().block();
+    var account = new Account();
+    account.setCustomerId("C-1");
+    account.setCustomerType(CustomerType.PERSONAL);
+    account.setMaintenanceFee(500L);
+    accountId = mongoTemplate.save(account).block().getId();
+
+    Flux.range(1, 50).flatMap(i -> {
+      var tx = new Transaction();
+      tx.setAccountId(accountId);
+      tx.setAgent("-");
+      tx.setAmount(1_000L);
+      tx.setDescription("Deposito");
+      tx.setOperationNumber(i);
+      tx.setRegisterDate(FROM.plusHours(i));
+      return mongoTemplate.save(tx);
+    }).blockLast();
+  }
+
+  @Test
+  public void findByAccountIdUsesIndex() {
+    assertIndexScan(explainFind("Transactions", new Document("accountId", accountId), new Document()));
+  }
+
+  @Test
+  public void findByAccountIdAndRegisterDateBetweenUsesIndex() {
+    assertIndexScan(explainFind("Transactions", new Document("accountId", accountId)
+        .append("registerDate", new Document("$gt", FROM).append("$lt", TO)), new Document()));
+  }
+
+  @Test
+  public void findStatementMovementsUsesIndexWithoutSort() {
+    var explain = explainQuery("findStatementMovements", accountId, FROM, TO);
+    assertIndexScan(explain);
+    assertThat(explain.toJson()).doesNotContain("\"SORT\"");
+  }
+
+  @Test
+  public void findPageAfterUsesIndex() {
+    var explain = explainQuery("findPageAfter", accountId, FROM.plusDays(1), 10, TO);
+    assertIndexScan(explain);
+    assertThat(explain.toJson()).doesNotContain("\"SORT\"");
+  }
+
+  @Test
+  public void balanceAggregationIsCoveredByIndex() {
+    var explain = explainAggregation("getBalanceByAccountId", accountId);
+    assertIndexScan(explain);
+    assertThat(explain.toJson()).doesNotContain("FETCH");
+  }
+
+  @Test
+  public void periodTotalsUseIndex() {
+    assertIndexScan(explainAggregation("getTotalsByAccountIdAndRegisterDateBetween", accountId, FROM, TO));
+    assertIndexScan(explainAggregation("getTotalsByAccountIdAndRegisterDateBefore", accountId, TO));
+    assertIndexScan(explainAggregation("getTotalsByAccountIdAndRegisterDateFrom", accountId, FROM));
+  }
+
+  @Test
+  public void findByCustomerIdAndCustomerTypeUsesIndex() {
+    assertIndexScan(explainFind("Accounts", new Document("customerId", "C-1").append("customerType", "PERSONAL"), new Document()));
+  }
+
+  private Document explainQuery(String methodName, Object... args) {
+    var query = method(methodName).getAnnotation(Query.class);
+    return explainFind("Transactions", bind(query.value(), args), bind(query.sort(), args));
+  }
+
+  private Document explainAggregation(String methodName, Object... args) {
+    var pipeline = Arrays.stream(method(methodName).getAnnotation(Aggregation.class).pipeline())
+        .map(stage -> bind(stage, args))
+        .collect(Collectors.toList());
+    return mongoTemplate.getCollection("Transactions")
+        .flatMap(collection -> Mono.from(collection.aggregate(pipeline).explain(Document.class)))
+        .block();
+  }
+
+  private Document explainFind(String collectionName, Document filter, Document sort) {
+    return mongoTemplate.getCollection(collectionName)
+        .flatMap(collection -> Mono.from(collection.find(filter).sort(sort).limit(20).explain(Document.class)))
+        .block();
+  }
+
+  private static Method method(String name) {
+    return Arrays.stream(TransactionRepository.class.getMethods())
+        .filter(method -> method.getName().equals(name))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  // Reemplaza ?0, ?1... como lo hace el repositorio al ejecutar la consulta, con los parámetros ya convertidos
+  private Document bind(String json, Object... args) {
+    var values = Arrays.stream(args).map(mongoTemplate.getConverter()::convertToMongoType).toArray();
+    return json.isEmpty() ? new Document() : new ParameterBindingDocumentCodec(mongoTemplate.getMongoDatabaseFactory().getCodecRegistry()).decode(json, values);
+  }
+
+  private void assertIndexScan(Document explain) {
+    assertThat(explain.toJson()).contains("IXSCAN").doesNotContain("COLLSCAN");
+  }
+}
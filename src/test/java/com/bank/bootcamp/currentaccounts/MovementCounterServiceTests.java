@@ -0,0 +1,58 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.YearMonth;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.bank.bootcamp.currentaccounts.entity.MonthlyMovementCounter;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.MovementCounterService;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class MovementCounterServiceTests {
+
+  @Test
+  public void legacyMonthsAreSeededOnTheFirstIncrement() {
+    var counters = new ConcurrentHashMap<String, Long>();
+    var counterTemplate = mock(ReactiveMongoTemplate.class);
+    when(counterTemplate.findAndModify(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(MonthlyMovementCounter.class))).thenAnswer(inv -> {
+      var id = (String) inv.<Query>getArgument(0).getQueryObject().get("_id");
+      var update = inv.<UpdateDefinition>getArgument(1).getUpdateObject();
+      Long count;
+      if (update.containsKey("$max")) {
+        count = counters.merge(id, ((Number) ((Document) update.get("$max")).get("count")).longValue(), Math::max);
+      } else {
+        count = counters.computeIfPresent(id, (key, value) -> value + ((Number) ((Document) update.get("$inc")).get("count")).longValue());
+      }
+      if (count == null)
+        return Mono.empty();
+      var counter = new MonthlyMovementCounter();
+      counter.setId(id);
+      counter.setCount(count);
+      return Mono.just(counter);
+    });
+    when(counterTemplate.findById(Mockito.anyString(), Mockito.eq(MonthlyMovementCounter.class))).thenAnswer(inv -> Mono.justOrEmpty(counters.get(inv.<String>getArgument(0))).map(count -> {
+      var counter = new MonthlyMovementCounter();
+      counter.setCount(count);
+      return counter;
+    }));
+    var counterTransactionRepository = mock(TransactionRepository.class);
+    // 150 movimientos del mes anteriores al contador, más el que se acaba de guardar
+    when(counterTransactionRepository.countByAccountIdAndRegisterDateBetween(Mockito.eq("LEGACY"), Mockito.any(), Mockito.any())).thenReturn(Mono.just(151L));
+    var counterService = new MovementCounterService(counterTemplate, counterTransactionRepository);
+    
+    // El primer incremento (carga masiva o cuota) cuenta el mes en lugar de empezar en delta
+    StepVerifier.create(counterService.increment("LEGACY", YearMonth.of(2022, 4), 1)).expectNext(151L).verifyComplete();
+    StepVerifier.create(counterService.increment("LEGACY", YearMonth.of(2022, 4), 2)).expectNext(153L).verifyComplete();
+    StepVerifier.create(counterService.getCount("LEGACY", YearMonth.of(2022, 4))).expectNext(153L).verifyComplete();
+    Mockito.verify(counterTransactionRepository, Mockito.times(1)).countByAccountIdAndRegisterDateBetween(Mockito.eq("LEGACY"), Mockito.any(), Mockito.any());
+  }
+}
@@ -0,0 +1,36 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import com.bank.bootcamp.currentaccounts.config.SchedulingConfig;
+
+public class SchedulingConfigTests {
+
+  @Test
+  public void longJobsDoNotHoldTheDispatcherThread() throws Exception {
+    var scheduler = new SchedulingConfig().taskScheduler(mock(Environment.class));
+    scheduler.initialize();
+    try {
+      // Un job que no termina no impide que el despachador siga ejecutándose
+      var release = new CountDownLatch(1);
+      scheduler.execute(() -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      var dispatched = new CountDownLatch(3);
+      scheduler.scheduleWithFixedDelay(dispatched::countDown, Duration.ofMillis(10));
+      assertThat(dispatched.await(2, TimeUnit.SECONDS)).isTrue();
+      release.countDown();
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+}
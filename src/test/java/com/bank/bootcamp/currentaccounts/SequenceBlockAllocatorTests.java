@@ -0,0 +1,31 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import com.bank.bootcamp.currentaccounts.service.SequenceBlockAllocator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class SequenceBlockAllocatorTests {
+
+  @Test
+  public void sequenceBlocksAreReservedOncePerBlock() {
+    var hi = new AtomicInteger();
+    var reservations = new AtomicInteger();
+    var allocator = new SequenceBlockAllocator(size -> Mono.fromSupplier(() -> {
+      reservations.incrementAndGet();
+      return hi.addAndGet(size);
+    }).subscribeOn(Schedulers.parallel()), 100, 20);
+    
+    var numbers = Flux.range(0, 1000)
+        .flatMap(i -> allocator.next().subscribeOn(Schedulers.parallel()), 64)
+        .collectList()
+        .block();
+    
+    assertThat(numbers).hasSize(1000).doesNotHaveDuplicates().allMatch(n -> n >= 1 && n <= hi.get());
+    // 10 bloques consumidos y como máximo uno adelantado por la precarga
+    assertThat(reservations.get()).isBetween(10, 11);
+  }
+}
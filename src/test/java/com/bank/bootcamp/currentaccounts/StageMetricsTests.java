@@ -0,0 +1,37 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.metrics.StageMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class StageMetricsTests extends AccountServiceTestSupport {
+
+  @Test
+  public void stagesAreTimedByOperationAndOutcome() {
+    var registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    var metrics = new StageMetrics(registry);
+    metrics.time("createTransaction", "findById", Mono.just(1)).block();
+    StepVerifier.create(metrics.time("createTransaction", "findById", Mono.error(new BankValidationException("Account not found")))).verifyError();
+    metrics.time("credits.balances", "http", Flux.range(0, 3)).take(1).blockLast();
+    
+    var success = registry.get(StageMetrics.METRIC).tags("operation", "createTransaction", "stage", "findById", "outcome", "success").timer();
+    assertThat(success.count()).isEqualTo(1);
+    // Histograma para calcular p99 en Prometheus con histogram_quantile
+    assertThat(registry.scrape()).contains("bank_stage_seconds_bucket{exception=\"none\",operation=\"createTransaction\",outcome=\"success\",stage=\"findById\",le=");
+    assertThat(registry.get(StageMetrics.METRIC).tags("outcome", "error", "exception", "BankValidationException").timer().count()).isEqualTo(1);
+    assertThat(registry.get(StageMetrics.METRIC).tags("operation", "credits.balances", "outcome", "cancelled").timer().count()).isEqualTo(1);
+    
+    // Las etapas de AccountService quedan registradas en el registry compartido
+    var account = Fixtures.account("ACC-TIMED", 500L);
+    when(accountRepository.findById("ACC-TIMED")).thenReturn(Mono.just(account));
+    accountService.getBalanceByAccountId("ACC-TIMED").block();
+    assertThat(meterRegistry.get(StageMetrics.METRIC).tags("operation", "getBalance", "stage", "balance", "outcome", "success").timer().count()).isGreaterThanOrEqualTo(1);
+  }
+}
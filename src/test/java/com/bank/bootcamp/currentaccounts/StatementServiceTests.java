@@ -0,0 +1,84 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import com.bank.bootcamp.currentaccounts.controller.AccountController;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.job.StatementJob;
+import com.bank.bootcamp.currentaccounts.service.BalanceStreamService;
+import com.bank.bootcamp.currentaccounts.service.BulkTransactionService;
+import com.bank.bootcamp.currentaccounts.service.CustomerAccountsProjection;
+import com.bank.bootcamp.currentaccounts.service.IdempotencyService;
+import com.bank.bootcamp.currentaccounts.service.StatementService;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class StatementServiceTests extends AccountServiceTestSupport {
+
+  @Test
+  public void statementsAreGeneratedOnceAndServedFromDisk() throws IOException {
+    var directory = Files.createTempDirectory("statements");
+    when(env.getProperty("statements.directory")).thenReturn(directory.toString());
+    var account = new Account();
+    account.setId("ST-1");
+    when(accountRepository.findById("ST-1")).thenReturn(Mono.just(account));
+    var deposit = new Transaction();
+    deposit.setOperationNumber(1);
+    deposit.setRegisterDate(LocalDateTime.of(2022, 4, 1, 0, 0));
+    deposit.setAgent("agente");
+    deposit.setDescription("Depósito, ventanilla");
+    deposit.setAmount(10_000L);
+    var fee = new Transaction();
+    fee.setOperationNumber(2);
+    fee.setRegisterDate(LocalDateTime.of(2022, 4, 30, 23, 0));
+    fee.setAgent("-");
+    fee.setDescription("Maintenance fee 2022-04");
+    fee.setAmount(-500L);
+    when(transactionRepository.findStatementMovements("ST-1", LocalDateTime.of(2022, 4, 1, 0, 0), LocalDateTime.of(2022, 5, 1, 0, 0)))
+      .thenReturn(Flux.just(deposit, fee));
+    
+    var statementService = new StatementService(transactionRepository, accountCache, env);
+    var client = WebTestClient.bindToController(new AccountController(accountService, mock(BulkTransactionService.class), mock(TransferService.class), mock(IdempotencyService.class), statementService, mock(BalanceStreamService.class), mock(CustomerAccountsProjection.class))).build();
+    for (int i = 0; i < 2; i++) {
+      var body = client.get().uri("/currentAccounts/statement/ST-1/2022/4").exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType("application/gzip")
+        .expectBody(byte[].class).returnResult().getResponseBody();
+      assertThat(new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+          "operationNumber,registerDate,agent,description,amount\n"
+          + "1,2022-04-01T00:00,agente,\"Depósito, ventanilla\",100.00\n"
+          + "2,2022-04-30T23:00,-,Maintenance fee 2022-04,-5.00\n");
+    }
+    // La segunda descarga se sirve desde el archivo
+    Mockito.verify(transactionRepository, Mockito.times(1)).findStatementMovements("ST-1", LocalDateTime.of(2022, 4, 1, 0, 0), LocalDateTime.of(2022, 5, 1, 0, 0));
+    StepVerifier.create(statementService.getStatement("ST-1", YearMonth.now())).expectError(BankValidationException.class).verify();
+    
+    // El id no puede salir del directorio de estados de cuenta
+    StepVerifier.create(statementService.getStatement("../ST-1", YearMonth.of(2022, 4))).expectErrorMessage("Invalid account Id").verify();
+    assertThatThrownBy(() -> statementService.statementPath("..", YearMonth.of(2022, 4))).isInstanceOf(IllegalArgumentException.class);
+    
+    // El job omite las cuentas con el estado ya generado
+    var statementTemplate = mock(ReactiveMongoTemplate.class);
+    when(statementTemplate.find(Mockito.any(Query.class), Mockito.eq(Account.class))).thenReturn(Flux.just(account));
+    StepVerifier.create(new StatementJob(statementTemplate, statementService, env).generate(YearMonth.of(2022, 4))).verifyComplete();
+    Mockito.verify(transactionRepository, Mockito.times(1)).findStatementMovements("ST-1", LocalDateTime.of(2022, 4, 1, 0, 0), LocalDateTime.of(2022, 5, 1, 0, 0));
+  }
+}
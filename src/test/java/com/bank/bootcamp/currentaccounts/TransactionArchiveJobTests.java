@@ -0,0 +1,95 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import com.bank.bootcamp.currentaccounts.dto.MovementTotals;
+import com.bank.bootcamp.currentaccounts.entity.Account;
+import com.bank.bootcamp.currentaccounts.entity.LedgerSnapshot;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.exception.BankValidationException;
+import com.bank.bootcamp.currentaccounts.job.TransactionArchiveJob;
+import com.bank.bootcamp.currentaccounts.repository.LedgerSnapshotRepository;
+import com.bank.bootcamp.currentaccounts.repository.TransactionArchiveRepositoryImpl;
+import com.bank.bootcamp.currentaccounts.repository.TransactionRepository;
+import com.bank.bootcamp.currentaccounts.service.LedgerSnapshotService;
+import com.mongodb.client.result.DeleteResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class TransactionArchiveJobTests extends AccountServiceTestSupport {
+
+  @Test
+  public void closedPeriodsAreArchivedAndReadTransparently() {
+    var period = YearMonth.of(2021, 1);
+    var archiveTemplate = mock(ReactiveMongoTemplate.class);
+    var archiveRepository = mock(TransactionRepository.class);
+    var archiveSnapshotRepository = mock(LedgerSnapshotRepository.class);
+    var archiveSnapshotService = mock(LedgerSnapshotService.class);
+    var indexOps = mock(ReactiveIndexOperations.class);
+    when(archiveRepository.isArchived(period)).thenReturn(true);
+    when(archiveRepository.archiveCollection(2021)).thenReturn("Transactions_2021");
+    when(archiveTemplate.indexOps("Transactions_2021")).thenReturn(indexOps);
+    when(indexOps.ensureIndex(Mockito.any())).thenReturn(Mono.just("account_date_operation"));
+    var closed = Fixtures.account("ARC-A", 1_000L);
+    var legacy = new Account();
+    legacy.setId("ARC-B");
+    when(archiveTemplate.find(Mockito.any(Query.class), Mockito.eq(Account.class))).thenReturn(Flux.just(closed, legacy));
+    var snapshot = new LedgerSnapshot();
+    snapshot.setAccountId("ARC-A");
+    when(archiveSnapshotRepository.findAllById(Mockito.<Iterable<String>>any())).thenReturn(Flux.just(snapshot));
+    when(archiveSnapshotService.close("ARC-B", period)).thenReturn(Mono.just(new LedgerSnapshot()));
+    when(accountBalanceService.initializeBalance("ARC-B")).thenReturn(Mono.just(500L));
+    when(archiveTemplate.getCollectionName(Transaction.class)).thenReturn("Transactions");
+    when(archiveTemplate.aggregate(Mockito.any(Aggregation.class), Mockito.eq("Transactions"), Mockito.eq(Document.class))).thenReturn(Flux.empty());
+    when(archiveTemplate.remove(Mockito.any(Query.class), Mockito.eq(Transaction.class))).thenReturn(Mono.just(DeleteResult.acknowledged(3)));
+    
+    var job = new TransactionArchiveJob(archiveTemplate, archiveRepository, archiveSnapshotRepository, archiveSnapshotService, accountBalanceService, env);
+    StepVerifier.create(job.archive(period)).expectNext(3L).verifyComplete();
+    // Saldo de arrastre antes del traslado: cierre del mes para la cuenta que no lo tenía y saldo materializado para la antigua
+    Mockito.verify(archiveSnapshotService, Mockito.never()).close("ARC-A", period);
+    Mockito.verify(archiveSnapshotService).close("ARC-B", period);
+    Mockito.verify(accountBalanceService).initializeBalance("ARC-B");
+    var copy = ArgumentCaptor.forClass(Aggregation.class);
+    Mockito.verify(archiveTemplate).aggregate(copy.capture(), Mockito.eq("Transactions"), Mockito.eq(Document.class));
+    var merge = copy.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(1).get("$merge", Document.class);
+    assertThat(merge.getString("into")).isEqualTo("Transactions_2021");
+    assertThat(merge.getString("whenMatched")).isEqualTo("keepExisting");
+    // Los meses recientes no se archivan
+    StepVerifier.create(job.archive(YearMonth.now())).expectError(BankValidationException.class).verify();
+    
+    // El periodo archivado se lee del archivo y de lo que quedó en Transactions, en orden y con el mismo límite
+    var archived = new Transaction();
+    archived.setRegisterDate(LocalDateTime.of(2021, 1, 5, 9, 0));
+    archived.setOperationNumber(1);
+    var remaining = new Transaction();
+    remaining.setRegisterDate(LocalDateTime.of(2021, 1, 10, 9, 0));
+    remaining.setOperationNumber(2);
+    var laterArchived = new Transaction();
+    laterArchived.setRegisterDate(LocalDateTime.of(2021, 1, 20, 9, 0));
+    laterArchived.setOperationNumber(3);
+    when(transactionRepository.isArchived(period)).thenReturn(true);
+    when(transactionRepository.findArchivedPageAfter(Mockito.eq("ARC-A"), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Flux.just(archived, laterArchived));
+    when(transactionRepository.findPageAfter(Mockito.eq("ARC-A"), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Flux.just(remaining));
+    StepVerifier.create(accountService.getTransactionsByAccountIdAndPeriod("ARC-A", LocalDate.of(2021, 1, 1), null, 2).map(Transaction::getOperationNumber))
+      .expectNext(1, 2)
+      .verifyComplete();
+    
+    // Un rango dentro de los meses recientes no consulta colecciones de archivo
+    var archiveReader = new TransactionArchiveRepositoryImpl(archiveTemplate, env);
+    StepVerifier.create(archiveReader.getArchivedTotals("ARC-A", YearMonth.now().atDay(1).atStartOfDay(), LocalDateTime.now())).assertNext(totals -> assertThat(totals.getCount()).isZero()).verifyComplete();
+    Mockito.verify(archiveTemplate, Mockito.never()).aggregate(Mockito.any(Aggregation.class), Mockito.anyString(), Mockito.eq(MovementTotals.class));
+  }
+}
@@ -0,0 +1,152 @@
+package com.bank.bootcamp.currentaccounts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import com.bank.bootcamp.currentaccounts.dto.AccountType;
+import com.bank.bootcamp.currentaccounts.dto.CreateTransactionDTO;
+import com.bank.bootcamp.currentaccounts.dto.TransferDTO;
+import com.bank.bootcamp.currentaccounts.entity.Transaction;
+import com.bank.bootcamp.currentaccounts.entity.Transfer;
+import com.bank.bootcamp.currentaccounts.entity.TransferStatus;
+import com.bank.bootcamp.currentaccounts.repository.TransferRepository;
+import com.bank.bootcamp.currentaccounts.service.AccountService;
+import com.bank.bootcamp.currentaccounts.service.TransferService;
+import com.bank.bootcamp.currentaccounts.webclient.AccountWebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class TransferServiceTests extends AccountServiceTestSupport {
+
+  @Test
+  public void transfer() {
+    var transferRepository = mock(TransferRepository.class);
+    var transferTemplate = mock(ReactiveMongoTemplate.class);
+    var transferWebClient = mock(AccountWebClient.class);
+    var transferEnv = mock(Environment.class);
+    var transferService = new TransferService(transferRepository, transactionRepository, transferTemplate, accountService, accountCache, transferWebClient, transferEnv, stageMetrics);
+    
+    // Outbox en memoria con la semántica de los findAndModify: toma por estado y vencimiento, cambios guardados por leaseId
+    var transfers = new ConcurrentHashMap<String, Transfer>();
+    when(transferRepository.insert(Mockito.any(Transfer.class))).thenAnswer(inv -> {
+      var transfer = inv.<Transfer>getArgument(0);
+      transfer.setId(UUID.randomUUID().toString());
+      transfers.put(transfer.getId(), transfer);
+      return Mono.just(transfer);
+    });
+    when(transferRepository.findById(Mockito.anyString())).thenAnswer(inv -> Mono.justOrEmpty(transfers.get(inv.<String>getArgument(0))));
+    when(transferTemplate.findAndModify(Mockito.any(Query.class), Mockito.any(UpdateDefinition.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(Transfer.class))).thenAnswer(inv -> {
+      var query = inv.<Query>getArgument(0).getQueryObject();
+      var target = query.containsKey("_id")
+          ? Optional.ofNullable(transfers.get(query.getString("_id"))).filter(t -> Objects.equals(t.getLeaseId(), query.get("leaseId")))
+          : transfers.values().stream()
+              .filter(t -> List.of(TransferStatus.PENDING, TransferStatus.DEBITED, TransferStatus.COMPENSATING).contains(t.getStatus()))
+              .filter(t -> !t.getNextAttemptAt().isAfter((LocalDateTime) ((Document) query.get("nextAttemptAt")).get("$lte")))
+              .findFirst();
+      return Mono.justOrEmpty(target.map(transfer -> {
+        var changes = new BeanWrapperImpl(transfer);
+        ((Document) inv.<UpdateDefinition>getArgument(1).getUpdateObject().get("$set")).forEach(changes::setPropertyValue);
+        var copy = new Transfer();
+        BeanUtils.copyProperties(transfer, copy);
+        return copy;
+      }));
+    });
+    // Ledger en memoria para las consultas por transferencia
+    var ledger = new ArrayList<Transaction>();
+    when(transactionRepository.findByTransferId(Mockito.anyString())).thenAnswer(inv -> Flux.fromIterable(new ArrayList<>(ledger))
+        .filter(tx -> inv.getArgument(0).equals(tx.getTransferId())));
+    var sequence = new AtomicInteger(100);
+    when(nextSequenceService.getNextSequence("TransactionSequences")).thenAnswer(inv -> Mono.just(sequence.incrementAndGet()));
+    when(transactionRepository.save(Mockito.any(Transaction.class))).thenAnswer(inv -> {
+      ledger.add(inv.getArgument(0));
+      return Mono.just(inv.getArgument(0));
+    });
+    
+    var sourceAccount = Fixtures.account("CA-001", 10_000L);
+    when(accountRepository.findById("CA-001")).thenReturn(Mono.just(sourceAccount));
+    var transferDTO = new TransferDTO();
+    transferDTO.setAmount(new BigDecimal("60"));
+    transferDTO.setSourceAccountId("CA-001");
+    transferDTO.setTargetAccountType(AccountType.SAVING);
+    transferDTO.setTargetAccountId("SA-001");
+    
+    // El débito se registra en la solicitud y el abono lo hace el dispatcher
+    var transferId = transferService.transfer(transferDTO).block();
+    StepVerifier.create(transferService.getTransfer(transferId)).assertNext(transfer -> {
+      assertThat(transfer.getStatus()).isEqualTo(TransferStatus.DEBITED);
+      assertThat(transfer.getSourceOperationNumber()).isNotNull();
+    }).verifyComplete();
+    when(transferWebClient.createTransaction(Mockito.any(AccountType.class), Mockito.any(CreateTransactionDTO.class))).thenReturn(Mono.just(4));
+    assertThat(transferService.dispatch(10, 2).collectList().block()).hasSize(1);
+    assertThat(transfers.get(transferId).getStatus()).isEqualTo(TransferStatus.CREDITED);
+    assertThat(transfers.get(transferId).getTargetOperationNumber()).isEqualTo(4);
+    
+    // Saldo insuficiente: se rechaza en la solicitud y queda registrada como fallida
+    transferDTO.setAmount(new BigDecimal("500"));
+    StepVerifier.create(transferService.transfer(transferDTO)).expectErrorMessage("Insuficient balance").verify();
+    assertThat(transfers.values()).filteredOn(t -> t.getStatus() == TransferStatus.FAILED).hasSize(1);
+    
+    // El producto destino no responde: el abono pudo aplicarse, agotados los intentos queda para revisión sin revertir
+    when(transferEnv.getProperty("transfer.dispatcher.max-attempts")).thenReturn("1");
+    var credit = ArgumentCaptor.forClass(CreateTransactionDTO.class);
+    when(transferWebClient.createTransaction(Mockito.any(AccountType.class), credit.capture())).thenReturn(Mono.error(new TimeoutException()));
+    transferDTO.setAmount(new BigDecimal("20"));
+    var uncertainId = transferService.transfer(transferDTO).block();
+    assertThat(transferService.dispatch(10, 2).collectList().block()).hasSize(1);
+    assertThat(transfers.get(uncertainId).getStatus()).isEqualTo(TransferStatus.UNCERTAIN);
+    assertThat(credit.getValue().getReference()).isEqualTo(uncertainId);
+    assertThat(transferService.dispatch(10, 2).collectList().block()).isEmpty();
+    
+    // Rechazo del producto destino: se revierte el débito sin cobrar comisión
+    when(transferWebClient.createTransaction(Mockito.any(AccountType.class), Mockito.any(CreateTransactionDTO.class)))
+      .thenReturn(Mono.error(WebClientResponseException.create(422, "Unprocessable Entity", null, null, null)));
+    when(movementCounterService.getCount(Mockito.any(), Mockito.any())).thenReturn(Mono.just(500L));
+    transferDTO.setAmount(new BigDecimal("10"));
+    var compensatedId = transferService.transfer(transferDTO).block();
+    assertThat(transferService.dispatch(10, 2).collectList().block()).hasSize(1);
+    assertThat(transfers.get(compensatedId).getStatus()).isEqualTo(TransferStatus.COMPENSATING);
+    assertThat(transferService.dispatch(10, 2).collectList().block()).hasSize(1);
+    assertThat(transfers.get(compensatedId).getStatus()).isEqualTo(TransferStatus.COMPENSATED);
+    var reversal = ArgumentCaptor.forClass(Transaction.class);
+    Mockito.verify(transactionRepository, Mockito.atLeastOnce()).save(reversal.capture());
+    assertThat(reversal.getAllValues())
+      .filteredOn(tx -> compensatedId.equals(tx.getTransferId()))
+      .extracting(Transaction::getAmount)
+      .containsExactly(-1_000L, AccountService.comissionFor(-1_000L), 1_000L);
+    
+    // Falla la comisión después de guardar el débito: la solicitud responde error y el débito se revierte
+    Mockito.doAnswer(inv -> "Maintenance comission by limit transactions".equals(inv.<Transaction>getArgument(0).getDescription())
+        ? Mono.error(new IllegalStateException("write failed"))
+        : Mono.justOrEmpty(inv.<Transaction>getArgument(0)).doOnNext(ledger::add)).when(transactionRepository).save(Mockito.any(Transaction.class));
+    StepVerifier.create(transferService.transfer(transferDTO)).expectErrorMessage("write failed").verify();
+    var orphan = transfers.values().stream().filter(t -> "write failed".equals(t.getLastError())).findFirst().orElseThrow();
+    assertThat(orphan.getStatus()).isEqualTo(TransferStatus.COMPENSATING);
+    assertThat(orphan.getSourceOperationNumber()).isNotNull();
+    assertThat(transferService.dispatch(10, 2).collectList().block()).hasSize(1);
+    assertThat(transfers.get(orphan.getId()).getStatus()).isEqualTo(TransferStatus.COMPENSATED);
+    assertThat(ledger).filteredOn(tx -> orphan.getId().equals(tx.getTransferId())).extracting(Transaction::getAmount).containsExactly(-1_000L, 1_000L);
+  }
+}